@@ -0,0 +1,243 @@
+package br.com.ccs.admissao;
+
+import br.com.ccs.config.AdmissaoPedidosProperties;
+import br.com.ccs.exceptions.SobrecargaException;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Limita quantas operações executam ao mesmo tempo, ajustando o limite por AIMD a partir da
+ * latência observada: cada operação concluída abaixo da latência alvo soma {@code 1/limite}
+ * (cerca de uma vaga a mais por rodada completa de operações) e cada operação lenta, ou que
+ * falhou por sobrecarga, multiplica o limite pelo fator de redução.
+ * <p>
+ * O limite só cresce enquanto está sendo usado, para não inflar em períodos de pouca carga.
+ * Operações além do limite aguardam em uma fila limitada; com a fila cheia, ou depois de
+ * esperar demais nela, a operação é rejeitada com {@link SobrecargaException}, sem chegar a
+ * disputar conexões ou locks. A espera na fila é vigiada por um temporizador, para que a
+ * rejeição aconteça no prazo mesmo quando nenhuma vaga é liberada.
+ */
+public class LimitadorConcorrencia {
+
+    private final AdmissaoPedidosProperties properties;
+    private final int limiteMaximo;
+    private final Executor executor;
+    private final Predicate<RuntimeException> indicaSobrecarga;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ArrayDeque<Tarefa<?>> fila = new ArrayDeque<>();
+    private final AtomicLong rejeitadas = new AtomicLong();
+    private double limite;
+    private int emExecucao;
+
+    public LimitadorConcorrencia(AdmissaoPedidosProperties properties, int limiteMaximo, Executor executor,
+                                 Predicate<RuntimeException> indicaSobrecarga) {
+        if (limiteMaximo < properties.getLimiteMinimo() || properties.getLimiteMinimo() < 1) {
+            throw new IllegalArgumentException("Limites de concorrência inválidos: mínimo "
+                    + properties.getLimiteMinimo() + ", máximo " + limiteMaximo);
+        }
+        this.properties = properties;
+        this.limiteMaximo = limiteMaximo;
+        this.executor = executor;
+        this.indicaSobrecarga = indicaSobrecarga;
+        this.limite = limiteMaximo;
+    }
+
+    public <T> CompletableFuture<T> executar(Supplier<T> operacao) {
+        var tarefa = new Tarefa<>(operacao, System.nanoTime());
+        boolean liberada;
+        boolean enfileirada = false;
+
+        lock.lock();
+        try {
+            liberada = emExecucao < (int) limite;
+            if (liberada) {
+                emExecucao++;
+            } else if (fila.size() < properties.getTamanhoFila()) {
+                fila.add(tarefa);
+                enfileirada = true;
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (liberada) {
+            despachar(tarefa);
+        } else if (enfileirada) {
+            agendarExpiracao(tarefa);
+        } else {
+            rejeitar(tarefa, "Fila de admissão cheia: " + properties.getTamanhoFila() + " operações aguardando");
+        }
+        return tarefa.resultado;
+    }
+
+    public double limite() {
+        lock.lock();
+        try {
+            return limite;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int emExecucao() {
+        lock.lock();
+        try {
+            return emExecucao;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int aguardando() {
+        lock.lock();
+        try {
+            return fila.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long rejeitadas() {
+        return rejeitadas.get();
+    }
+
+    /**
+     * Com o executor encerrado, a tarefa falha com a {@link RejectedExecutionException} e a
+     * vaga que ela ocupava é devolvida.
+     */
+    private void despachar(Tarefa<?> tarefa) {
+        try {
+            executor.execute(() -> executar(tarefa));
+        } catch (RejectedExecutionException e) {
+            tarefa.resultado.completeExceptionally(e);
+            liberarVaga(null);
+        }
+    }
+
+    /**
+     * A vaga é devolvida antes de completar o resultado, para que quem o observa já veja o
+     * limitador livre dela. Qualquer {@link Throwable} devolve a vaga e completa o resultado;
+     * um {@link Error} ainda é relançado depois disso.
+     */
+    private <T> void executar(Tarefa<T> tarefa) {
+        var inicio = System.nanoTime();
+        T resultado = null;
+        Throwable falha = null;
+        try {
+            resultado = tarefa.operacao.get();
+        } catch (Throwable e) {
+            falha = e;
+        } finally {
+            var sobrecarga = falha instanceof RuntimeException e && indicaSobrecarga.test(e);
+            liberarVaga(new Conclusao(System.nanoTime() - inicio, sobrecarga));
+        }
+
+        if (falha == null) {
+            tarefa.resultado.complete(resultado);
+            return;
+        }
+        tarefa.resultado.completeExceptionally(falha);
+        if (falha instanceof Error erro) {
+            throw erro;
+        }
+    }
+
+    /**
+     * @param conclusao latência e resultado da operação que ocupava a vaga, para ajustar o
+     *                  limite; {@code null} quando a operação nem chegou a executar
+     */
+    private void liberarVaga(Conclusao conclusao) {
+        var liberadas = new ArrayList<Tarefa<?>>();
+        var expiradas = new ArrayList<Tarefa<?>>();
+
+        lock.lock();
+        try {
+            if (conclusao != null) {
+                ajustarLimite(conclusao);
+            }
+            emExecucao--;
+            liberarDaFila(liberadas, expiradas);
+        } finally {
+            lock.unlock();
+        }
+
+        expiradas.forEach(this::rejeitarExpirada);
+        liberadas.forEach(this::despachar);
+    }
+
+    private void ajustarLimite(Conclusao conclusao) {
+        if (conclusao.sobrecarga() || conclusao.latencia() > properties.getLatenciaAlvo().toNanos()) {
+            limite = Math.max(properties.getLimiteMinimo(), limite * properties.getFatorReducao());
+        } else if (emExecucao * 2 >= limite) {
+            limite = Math.min(limiteMaximo, limite + 1 / limite);
+        }
+    }
+
+    private void liberarDaFila(List<Tarefa<?>> liberadas, List<Tarefa<?>> expiradas) {
+        var agora = System.nanoTime();
+        var tempoMaximoFila = properties.getTempoMaximoFila().toNanos();
+
+        while (emExecucao < (int) limite && !fila.isEmpty()) {
+            var tarefa = fila.poll();
+            if (agora - tarefa.chegada > tempoMaximoFila) {
+                expiradas.add(tarefa);
+            } else {
+                emExecucao++;
+                liberadas.add(tarefa);
+            }
+        }
+    }
+
+    /**
+     * Rejeita a tarefa que ainda estiver na fila ao fim do tempo máximo de espera. Se ela já
+     * foi liberada, ou expirada por {@link #liberarDaFila}, o temporizador não faz nada.
+     */
+    private void agendarExpiracao(Tarefa<?> tarefa) {
+        CompletableFuture.delayedExecutor(properties.getTempoMaximoFila().toNanos(), TimeUnit.NANOSECONDS)
+                .execute(() -> expirar(tarefa));
+    }
+
+    private void expirar(Tarefa<?> tarefa) {
+        boolean removida;
+
+        lock.lock();
+        try {
+            removida = fila.removeIf(aguardando -> aguardando == tarefa);
+        } finally {
+            lock.unlock();
+        }
+
+        if (removida) {
+            rejeitarExpirada(tarefa);
+        }
+    }
+
+    private void rejeitarExpirada(Tarefa<?> tarefa) {
+        rejeitar(tarefa, "Tempo máximo na fila de admissão excedido: " + properties.getTempoMaximoFila());
+    }
+
+    private void rejeitar(Tarefa<?> tarefa, String motivo) {
+        rejeitadas.incrementAndGet();
+        tarefa.resultado.completeExceptionally(new SobrecargaException(motivo));
+    }
+
+    private record Conclusao(long latencia, boolean sobrecarga) {
+    }
+
+    private record Tarefa<T>(Supplier<T> operacao, long chegada, CompletableFuture<T> resultado) {
+
+        private Tarefa(Supplier<T> operacao, long chegada) {
+            this(operacao, chegada, new CompletableFuture<>());
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package br.com.ccs.cache;
+
+import br.com.ccs.config.SnapshotCustoProperties;
+import br.com.ccs.repositories.projections.CustoProduto;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Valor de compra e versão dos produtos mantidos em memória para a validação do valor mínimo de venda.
+ * <p>
+ * O snapshot pode estar desatualizado: quem o utiliza deve conferir no banco, no commit, as versões
+ * lidas daqui. Para reduzir esses conflitos, quem altera o valor de compra invalida os produtos após
+ * o commit, e cargas iniciadas antes de uma invalidação são descartadas ({@link #geracao()}).
+ * <p>
+ * Limitado a {@code app.produtos.snapshot.tamanho-maximo} produtos; acima disso o Caffeine
+ * descarta os menos usados.
+ */
+@Component
+public class SnapshotCustoProdutos {
+
+    private final Cache<UUID, CustoProduto> custos;
+    private final AtomicLong geracao = new AtomicLong();
+    private final Counter acertos;
+    private final Counter faltas;
+
+    public SnapshotCustoProdutos(SnapshotCustoProperties properties, MeterRegistry meterRegistry) {
+        this.custos = Caffeine.newBuilder()
+                .maximumSize(properties.getTamanhoMaximo())
+                .executor(Runnable::run)
+                .build();
+        this.acertos = meterRegistry.counter("produtos.snapshot.acessos", "resultado", "acerto");
+        this.faltas = meterRegistry.counter("produtos.snapshot.acessos", "resultado", "falta");
+    }
+
+    /**
+     * Devolve os custos presentes no snapshot; os IDs ausentes simplesmente não aparecem no mapa.
+     */
+    public Map<UUID, CustoProduto> buscar(Collection<UUID> ids) {
+        var encontrados = new HashMap<UUID, CustoProduto>(ids.size());
+        for (var id : ids) {
+            var custo = custos.getIfPresent(id);
+            if (custo != null) {
+                encontrados.put(id, custo);
+            }
+        }
+        acertos.increment(encontrados.size());
+        faltas.increment(ids.size() - encontrados.size());
+        return encontrados;
+    }
+
+    public long geracao() {
+        return geracao.get();
+    }
+
+    /**
+     * Inclui custos lidos do banco, desde que nenhuma invalidação tenha ocorrido
+     * desde {@code geracaoLida}, caso em que os valores podem já estar desatualizados.
+     * <p>
+     * Uma versão mais nova já presente não é substituída. Se uma invalidação acontecer durante
+     * a inclusão, ela pode ter removido os produtos antes de eles serem gravados aqui, então os
+     * custos incluídos são retirados de novo.
+     */
+    public void armazenar(Collection<CustoProduto> lidos, long geracaoLida) {
+        if (geracao.get() != geracaoLida) {
+            return;
+        }
+
+        var mapa = custos.asMap();
+        lidos.forEach(custo -> mapa.merge(custo.id(), custo, (atual, lido) -> lido.versao() > atual.versao() ? lido : atual));
+
+        if (geracao.get() != geracaoLida) {
+            lidos.forEach(custo -> mapa.remove(custo.id(), custo));
+        }
+    }
+
+    public void invalidar(Collection<UUID> ids) {
+        geracao.incrementAndGet();
+        custos.invalidateAll(ids);
+    }
+
+    public void invalidarTodos() {
+        geracao.incrementAndGet();
+        custos.invalidateAll();
+    }
+
+    public long tamanho() {
+        return custos.estimatedSize();
+    }
+}
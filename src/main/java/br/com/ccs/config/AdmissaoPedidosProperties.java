@@ -0,0 +1,34 @@
+package br.com.ccs.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "app.pedidos.admissao")
+public class AdmissaoPedidosProperties {
+
+    /**
+     * Teto de pedidos gravando ao mesmo tempo; quando ausente, o tamanho do pool de conexões.
+     * O limite começa no teto e é ajustado entre ele e {@code limiteMinimo}.
+     */
+    private Integer limiteMaximo;
+    private int limiteMinimo = 1;
+    /**
+     * Gravações mais lentas que isso são tratadas como sinal de sobrecarga e reduzem o limite.
+     */
+    private Duration latenciaAlvo = Duration.ofMillis(250);
+    /**
+     * Fator aplicado ao limite a cada sinal de sobrecarga.
+     */
+    private double fatorReducao = 0.9;
+    /**
+     * Pedidos aguardando vaga além deste tamanho são rejeitados na submissão.
+     */
+    private int tamanhoFila = 1_000;
+    /**
+     * Pedidos que esperaram mais que isso na fila são rejeitados em vez de executados.
+     */
+    private Duration tempoMaximoFila = Duration.ofSeconds(5);
+}
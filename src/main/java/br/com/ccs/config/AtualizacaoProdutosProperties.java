@@ -0,0 +1,15 @@
+package br.com.ccs.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "app.produtos.atualizacao")
+public class AtualizacaoProdutosProperties {
+
+    /**
+     * Quantidade de produtos bloqueados e atualizados em cada transação
+     * da atualização em lotes.
+     */
+    private int tamanhoLote = 100;
+}
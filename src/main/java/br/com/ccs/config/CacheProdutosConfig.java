@@ -0,0 +1,94 @@
+package br.com.ccs.config;
+
+import br.com.ccs.entities.ResumoProduto;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.util.OptionalLong;
+import java.util.UUID;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Cache de segundo nível de {@link ResumoProduto}, em memória via Caffeine, ligado por
+ * {@code app.produtos.cache.habilitado}. O {@code Produto} inteiro, com valor de compra e
+ * versão, não é cacheado: é lido sempre do banco, em geral sob lock.
+ * <p>
+ * O {@link CacheManager} é criado aqui, e não por arquivo de configuração, para que o tamanho
+ * e a expiração venham de {@link CacheProdutosProperties}. Cada contexto Spring recebe o seu,
+ * evitando que contextos diferentes na mesma JVM compartilhem a região.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.produtos.cache", name = "habilitado", havingValue = "true")
+public class CacheProdutosConfig {
+
+    public static final String ACESSOS = "produtos.cache.acessos";
+    public static final String TAXA_ACERTO = "produtos.cache.taxa-acerto";
+    public static final String TAMANHO = "produtos.cache.tamanho";
+
+    @Bean(destroyMethod = "close")
+    CacheManager cacheProdutosManager(CacheProdutosProperties properties) {
+        var cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("produtos-" + UUID.randomUUID()), getClass().getClassLoader());
+
+        var configuracao = new CaffeineConfiguration<>();
+        configuracao.setMaximumSize(OptionalLong.of(properties.getTamanhoMaximo()));
+        configuracao.setExpireAfterWrite(OptionalLong.of(properties.getExpiracao().toNanos()));
+        cacheManager.createCache(ResumoProduto.REGIAO_CACHE, configuracao);
+
+        return cacheManager;
+    }
+
+    @Bean
+    HibernatePropertiesCustomizer cacheProdutosHibernateCustomizer(CacheManager cacheProdutosManager) {
+        return hibernateProperties -> hibernateProperties.put(ConfigSettings.CACHE_MANAGER, cacheProdutosManager);
+    }
+
+    /**
+     * Publica acertos, faltas e a taxa de acerto da região a partir das estatísticas do
+     * Hibernate, para dimensionar {@link CacheProdutosProperties#getTamanhoMaximo()}.
+     */
+    @Bean
+    MeterBinder cacheProdutosMetrics(EntityManagerFactory entityManagerFactory) {
+        var statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        return registry -> {
+            FunctionCounter.builder(ACESSOS, statistics, s -> regiao(s).getHitCount())
+                    .tag("resultado", "acerto")
+                    .register(registry);
+            FunctionCounter.builder(ACESSOS, statistics, s -> regiao(s).getMissCount())
+                    .tag("resultado", "falta")
+                    .register(registry);
+            Gauge.builder(TAXA_ACERTO, statistics, taxaAcerto())
+                    .register(registry);
+            Gauge.builder(TAMANHO, statistics, s -> regiao(s).getElementCountInMemory())
+                    .register(registry);
+        };
+    }
+
+    private static ToDoubleFunction<Statistics> taxaAcerto() {
+        return statistics -> {
+            var regiao = regiao(statistics);
+            var acessos = regiao.getHitCount() + regiao.getMissCount();
+            return acessos == 0 ? 0 : (double) regiao.getHitCount() / acessos;
+        };
+    }
+
+    private static CacheRegionStatistics regiao(Statistics statistics) {
+        return statistics.getDomainDataRegionStatistics(ResumoProduto.REGIAO_CACHE);
+    }
+}
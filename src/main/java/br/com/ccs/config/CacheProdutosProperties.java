@@ -0,0 +1,25 @@
+package br.com.ccs.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "app.produtos.cache")
+public class CacheProdutosProperties {
+
+    /**
+     * Liga o cache de segundo nível do Hibernate para {@code ResumoProduto}, o nome e o valor
+     * de venda dos produtos.
+     */
+    private boolean habilitado = false;
+    /**
+     * Quantidade máxima de produtos no cache; acima dela os menos usados são descartados.
+     */
+    private long tamanhoMaximo = 10_000;
+    /**
+     * Tempo máximo que um produto permanece no cache após ser gravado nele.
+     */
+    private Duration expiracao = Duration.ofMinutes(10);
+}
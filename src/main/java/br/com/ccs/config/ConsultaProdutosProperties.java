@@ -0,0 +1,15 @@
+package br.com.ccs.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "app.produtos.consulta")
+public class ConsultaProdutosProperties {
+
+    /**
+     * Buscas por até esta quantidade de IDs usam {@code IN}, com a lista de parâmetros
+     * completada até a próxima potência de 2; acima dela, um único parâmetro de array.
+     */
+    private int tamanhoMaximoListaIn = 1_024;
+}
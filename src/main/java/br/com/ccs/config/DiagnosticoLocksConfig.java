@@ -0,0 +1,32 @@
+package br.com.ccs.config;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+
+@Configuration
+@ConditionalOnProperty(prefix = "app.lock.diagnostico", name = {"habilitado", "identificar-threads"}, havingValue = "true")
+public class DiagnosticoLocksConfig {
+
+    /**
+     * Envolve os pools, e não os {@link DelegatingDataSource} que delegam a eles, como o
+     * roteamento da réplica: identificar a sessão na retirada obrigaria o proxy preguiçoso a
+     * abrir a conexão antes de saber para qual banco ela vai. Cada pool continua injetável pela
+     * própria classe, como os {@code HikariDataSource} da réplica.
+     */
+    @Bean
+    static BeanPostProcessor sessoesBancoDataSource() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof DataSource dataSource && !(bean instanceof DelegatingDataSource)
+                        ? SessoesBancoDataSource.envolver(dataSource)
+                        : bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,14 @@
+package br.com.ccs.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "app.pedidos.exportacao")
+public class ExportacaoPedidosProperties {
+
+    /**
+     * Quantidade de linhas que o driver JDBC traz do banco a cada ida ao cursor.
+     */
+    private int fetchSize = 1_000;
+}
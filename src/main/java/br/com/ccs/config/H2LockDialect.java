@@ -0,0 +1,58 @@
+package br.com.ccs.config;
+
+import org.hibernate.boot.model.FunctionContributions;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.engine.jdbc.dialect.spi.DialectResolutionInfo;
+import org.hibernate.type.StandardBasicTypes;
+
+/**
+ * O H2 aceita {@code FOR UPDATE NOWAIT}, {@code WAIT n} e {@code SKIP LOCKED} desde a
+ * versão 2.2, mas o {@link H2Dialect} do Hibernate 6.4 ainda não os declara e ignora
+ * silenciosamente o timeout de lock informado nas consultas.
+ * <p>
+ * O H2 também não tem lock compartilhado de linha, e o {@link H2Dialect} traduz
+ * {@code PESSIMISTIC_READ} para {@code FOR UPDATE}. Esse rebaixamento é mantido de propósito,
+ * para que o lock continue valendo no banco, e por isso a estratégia
+ * {@link br.com.ccs.locks.EstrategiaLock#PESSIMISTA_LEITURA} é recusada na subida.
+ * <p>
+ * Registra ainda a função HQL {@value #ALGUM_DE}, {@code algum_de(valor, :array)}, traduzida
+ * para {@code valor = any(?)}: um único parâmetro de array no lugar de um parâmetro por
+ * elemento do {@code IN}, com o mesmo SQL para qualquer quantidade de elementos.
+ */
+public class H2LockDialect extends H2Dialect {
+
+    public static final String ALGUM_DE = "algum_de";
+
+    public H2LockDialect() {
+        super();
+    }
+
+    public H2LockDialect(DialectResolutionInfo info) {
+        super(info);
+    }
+
+    @Override
+    public boolean supportsNoWait() {
+        return true;
+    }
+
+    @Override
+    public boolean supportsWait() {
+        return true;
+    }
+
+    @Override
+    public boolean supportsSkipLocked() {
+        return true;
+    }
+
+    @Override
+    public void initializeFunctionRegistry(FunctionContributions functionContributions) {
+        super.initializeFunctionRegistry(functionContributions);
+        functionContributions.getFunctionRegistry().patternDescriptorBuilder(ALGUM_DE, "(?1 = any(?2))")
+                .setExactArgumentCount(2)
+                .setInvariantType(functionContributions.getTypeConfiguration().getBasicTypeRegistry()
+                        .resolve(StandardBasicTypes.BOOLEAN))
+                .register();
+    }
+}
@@ -0,0 +1,33 @@
+package br.com.ccs.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "app.produtos.ingestao-custos")
+public class IngestaoCustosProperties {
+
+    /**
+     * Intervalo entre as aplicações da fila; atualizações do mesmo produto dentro dele são
+     * combinadas e só a última é gravada.
+     */
+    private Duration janela = Duration.ofMillis(200);
+    /**
+     * Quantidade máxima de produtos distintos aguardando na fila.
+     */
+    private int capacidade = 10_000;
+    /**
+     * Quantidade de produtos bloqueados e atualizados em cada transação.
+     */
+    private int tamanhoLote = 500;
+    /**
+     * Espera máxima de quem enfileira por espaço na fila cheia, antes de ser rejeitado.
+     */
+    private Duration tempoMaximoEspera = Duration.ofSeconds(5);
+    /**
+     * Aplicações com falha transitória que um produto tolera antes de ter o valor descartado.
+     */
+    private int tentativasMaximas = 5;
+}
@@ -0,0 +1,89 @@
+package br.com.ccs.config;
+
+import br.com.ccs.locks.EstrategiaLock;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "app.lock")
+public class LockProperties {
+
+    private EstrategiaLock estrategia = EstrategiaLock.PESSIMISTA_ESCRITA;
+    /**
+     * Espera máxima pelo lock dos produtos na estratégia {@link EstrategiaLock#PESSIMISTA_TIMEOUT}.
+     */
+    private Duration timeoutLock = Duration.ofSeconds(1);
+    /**
+     * Confere a margem mínima sem lock, pelo snapshot em memória ou por uma leitura simples,
+     * antes de bloquear os produtos, rejeitando ali os pedidos abaixo da margem.
+     */
+    private boolean preValidacao = true;
+    private Retry retry = new Retry();
+    private Coordenador coordenador = new Coordenador();
+    private Reagendamento reagendamento = new Reagendamento();
+    private Diagnostico diagnostico = new Diagnostico();
+
+    @Data
+    public static class Retry {
+
+        /**
+         * Total de tentativas, incluindo a primeira, antes de desistir de um conflito de versão.
+         */
+        private int maxTentativas = 5;
+        private Duration backoffInicial = Duration.ofMillis(10);
+        private Duration backoffMaximo = Duration.ofMillis(200);
+    }
+
+    @Data
+    public static class Coordenador {
+
+        /**
+         * Serializa na JVM, antes de abrir a transação, o acesso aos produtos que serão bloqueados no banco.
+         */
+        private boolean habilitado = false;
+        /**
+         * Quantidade de locks locais; produtos diferentes podem compartilhar o mesmo lock.
+         */
+        private int listras = 1024;
+        /**
+         * Atende os pedidos de lock na ordem de chegada, ao custo de menor vazão.
+         */
+        private boolean justo = true;
+        private Duration tempoMaximoEspera = Duration.ofSeconds(30);
+    }
+
+    @Data
+    public static class Reagendamento {
+
+        private Duration backoffInicial = Duration.ofMillis(20);
+        private Duration backoffMaximo = Duration.ofMillis(500);
+        /**
+         * Tempo total, contado da submissão, durante o qual um pedido que não obteve os locks é reenviado.
+         */
+        private Duration prazo = Duration.ofSeconds(5);
+    }
+
+    @Data
+    public static class Diagnostico {
+
+        /**
+         * Captura o grafo de espera de locks do banco quando a busca dos produtos falha por lock.
+         */
+        private boolean habilitado = true;
+        /**
+         * Nomeia no grafo as threads que seguram cada sessão. Consulta o id da sessão em cada nova
+         * conexão física e passa os pools por um proxy, por isso fica desligado por padrão.
+         */
+        private boolean identificarThreads = false;
+        /**
+         * Fração das falhas de lock, entre 0 e 1, que disparam uma captura.
+         */
+        private double taxaAmostragem = 1.0;
+        /**
+         * Intervalo mínimo entre duas capturas; as falhas nesse intervalo são apenas contadas.
+         */
+        private Duration intervaloMinimo = Duration.ofSeconds(10);
+    }
+}
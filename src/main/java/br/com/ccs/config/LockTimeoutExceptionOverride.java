@@ -0,0 +1,22 @@
+package br.com.ccs.config;
+
+import com.zaxxer.hikari.SQLExceptionOverride;
+
+import java.sql.SQLException;
+
+/**
+ * O H2 sinaliza lock não obtido (NOWAIT ou timeout de lock) com uma {@link java.sql.SQLTimeoutException},
+ * que o Hikari trata como conexão quebrada e descarta, fazendo o rollback falhar.
+ * <p>
+ * A conexão continua válida nesse caso, então ela é mantida no pool e a falha de lock chega
+ * intacta a quem pode reagendar a operação.
+ */
+public class LockTimeoutExceptionOverride implements SQLExceptionOverride {
+
+    private static final int H2_LOCK_TIMEOUT = 50200;
+
+    @java.lang.Override
+    public Override adjudicate(SQLException sqlException) {
+        return sqlException.getErrorCode() == H2_LOCK_TIMEOUT ? Override.DO_NOT_EVICT : Override.CONTINUE_EVICT;
+    }
+}
@@ -0,0 +1,33 @@
+package br.com.ccs.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Registro de métricas em memória, sem o Actuator: a aplicação não expõe endpoints, e só
+ * precisa de um {@link MeterRegistry} para as métricas de lock, admissão e ingestão.
+ * <p>
+ * O registro é declarado sem condição: {@code @ConditionalOnMissingBean} só é confiável em
+ * auto-configurações, e aqui dependeria da ordem em que as configurações são lidas. Para
+ * exportar as métricas (Prometheus, por exemplo), troque o registro criado aqui. Os
+ * {@link MeterBinder} são vinculados depois que todos os singletons existem, já que alguns
+ * dependem do {@code EntityManagerFactory}.
+ */
+@Configuration
+public class MetricasConfig {
+
+    @Bean
+    MeterRegistry meterRegistry() {
+        return new SimpleMeterRegistry();
+    }
+
+    @Bean
+    SmartInitializingSingleton vincularMeterBinders(MeterRegistry meterRegistry, ObjectProvider<MeterBinder> binders) {
+        return () -> binders.orderedStream().forEach(binder -> binder.bindTo(meterRegistry));
+    }
+}
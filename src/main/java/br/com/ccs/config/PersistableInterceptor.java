@@ -0,0 +1,22 @@
+package br.com.ccs.config;
+
+import org.hibernate.Interceptor;
+import org.springframework.data.domain.Persistable;
+
+/**
+ * Usa {@link Persistable#isNew()} para o Hibernate decidir se uma entidade com id
+ * atribuído pela aplicação já existe no banco.
+ * <p>
+ * Sem isso, ao inserir um item que referencia um {@code Produto} fora do contexto de
+ * persistência, o Hibernate não consegue decidir pelo id nem pela versão e faz um
+ * SELECT por item só para confirmar que o produto existe.
+ */
+public class PersistableInterceptor implements Interceptor {
+
+    @Override
+    public Boolean isTransient(Object entity) {
+        return entity instanceof Persistable<?> persistable
+                ? persistable.isNew()
+                : null;
+    }
+}
@@ -0,0 +1,58 @@
+package br.com.ccs.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+
+/**
+ * Com a réplica habilitada, substitui o {@link DataSource} da auto-configuração por dois pools,
+ * o principal ({@code spring.datasource.*}) e o da réplica ({@code app.datasource.replica.*}),
+ * atrás do {@link RoteamentoLeituraDataSource}.
+ * <p>
+ * O {@link DataSource} primário continua entregando o pool principal a quem o inspeciona fora
+ * de uma leitura na réplica, como o tamanho do pool usado pela admissão de pedidos e as
+ * consultas de sessões do diagnóstico de locks.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.datasource.replica", name = "habilitada", havingValue = "true")
+public class ReplicaLeituraConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    HikariDataSource dataSourcePrincipal(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @ConfigurationProperties("app.datasource.replica.hikari")
+    HikariDataSource dataSourceReplica(ReplicaLeituraProperties properties) {
+        var dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(properties.getUrl())
+                .username(properties.getUsername())
+                .password(properties.getPassword())
+                .build();
+        dataSource.setPoolName("replica");
+        return dataSource;
+    }
+
+    @Bean
+    @Primary
+    DataSource dataSource(@Qualifier("dataSourcePrincipal") DataSource principal,
+                          @Qualifier("dataSourceReplica") DataSource replica) {
+        var dataSource = new LazyConnectionDataSourceProxy(new RoteamentoLeituraDataSource(principal, replica));
+        dataSource.setDefaultAutoCommit(true);
+        dataSource.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        return dataSource;
+    }
+}
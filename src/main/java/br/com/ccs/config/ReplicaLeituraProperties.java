@@ -0,0 +1,19 @@
+package br.com.ccs.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Banco de leitura (réplica) para as consultas que optam explicitamente por ele via
+ * {@link br.com.ccs.leitura.LeituraReplica}. O pool é configurado em
+ * {@code app.datasource.replica.hikari.*}, como o principal em {@code spring.datasource.hikari.*}.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.datasource.replica")
+public class ReplicaLeituraProperties {
+
+    private boolean habilitada;
+    private String url;
+    private String username;
+    private String password;
+}
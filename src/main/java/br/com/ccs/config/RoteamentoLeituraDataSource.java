@@ -0,0 +1,33 @@
+package br.com.ccs.config;
+
+import br.com.ccs.leitura.LeituraReplica;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Entrega conexões da réplica apenas dentro de uma {@link LeituraReplica}; todo o resto,
+ * inclusive transações {@code readOnly} que não optaram pela réplica, usa o banco principal.
+ * <p>
+ * A escolha é feita quando a conexão é de fato usada, por isso este roteamento deve ficar
+ * atrás de um {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}: no
+ * início da transação o {@code readOnly} ainda não está registrado na thread.
+ */
+public class RoteamentoLeituraDataSource extends AbstractRoutingDataSource {
+
+    private static final String PRINCIPAL = "principal";
+    private static final String REPLICA = "replica";
+
+    public RoteamentoLeituraDataSource(DataSource principal, DataSource replica) {
+        setTargetDataSources(Map.of(PRINCIPAL, principal, REPLICA, replica));
+        setDefaultTargetDataSource(principal);
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return LeituraReplica.isRoteadaParaReplica() ? REPLICA : PRINCIPAL;
+    }
+}
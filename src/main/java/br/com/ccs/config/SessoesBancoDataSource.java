@@ -0,0 +1,100 @@
+package br.com.ccs.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registra qual thread recebeu cada sessão do banco ao retirar a conexão do pool, para que
+ * o {@link br.com.ccs.locks.DiagnosticoLocks} dê nome aos participantes de uma disputa de lock.
+ * <p>
+ * O id da sessão é consultado uma única vez por conexão física; nas demais retiradas o custo
+ * é apenas o de atualizar um mapa. Só é instalado com {@code app.lock.diagnostico.identificar-threads}.
+ */
+@Slf4j
+public class SessoesBancoDataSource extends DelegatingDataSource {
+
+    private final Map<Connection, Integer> idsSessao = Collections.synchronizedMap(new WeakHashMap<>());
+    private final Map<Integer, String> threadsPorSessao = new ConcurrentHashMap<>();
+
+    public SessoesBancoDataSource(DataSource dataSource) {
+        super(dataSource);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return registrar(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return registrar(super.getConnection(username, password));
+    }
+
+    /**
+     * Envolve o pool em um proxy da própria classe dele, que continua injetável por ela, e desvia
+     * para o registro apenas as retiradas de conexão e o {@code unwrap} para esta classe.
+     */
+    public static DataSource envolver(DataSource dataSource) {
+        var sessoes = new SessoesBancoDataSource(dataSource);
+        var proxy = new ProxyFactory(dataSource);
+        proxy.setProxyTargetClass(true);
+        proxy.addAdvice((MethodInterceptor) sessoes::interceptar);
+        return (DataSource) proxy.getProxy(dataSource.getClass().getClassLoader());
+    }
+
+    /**
+     * @return a última thread que retirou a sessão do pool
+     */
+    public Optional<String> thread(int idSessao) {
+        return Optional.ofNullable(threadsPorSessao.get(idSessao));
+    }
+
+    public static String descrever(Thread thread) {
+        return thread.getName().isBlank() ? "#" + thread.threadId() : thread.getName();
+    }
+
+    private Object interceptar(MethodInvocation invocacao) throws Throwable {
+        var argumentos = invocacao.getArguments();
+        return switch (invocacao.getMethod().getName()) {
+            case "getConnection" -> registrar((Connection) invocacao.proceed());
+            case "unwrap" -> argumentos[0] == SessoesBancoDataSource.class ? this : invocacao.proceed();
+            case "isWrapperFor" -> argumentos[0] == SessoesBancoDataSource.class || (boolean) invocacao.proceed();
+            default -> invocacao.proceed();
+        };
+    }
+
+    private Connection registrar(Connection conexao) {
+        try {
+            var fisica = conexao.unwrap(Connection.class);
+            var idSessao = idsSessao.get(fisica);
+            if (idSessao == null) {
+                idSessao = consultarIdSessao(conexao);
+                idsSessao.put(fisica, idSessao);
+            }
+            threadsPorSessao.put(idSessao, descrever(Thread.currentThread()));
+        } catch (SQLException e) {
+            log.debug("\nNão foi possível identificar a sessão do banco da conexão", e);
+        }
+        return conexao;
+    }
+
+    private static int consultarIdSessao(Connection conexao) throws SQLException {
+        try (var statement = conexao.createStatement();
+             var resultado = statement.executeQuery("call session_id()")) {
+            resultado.next();
+            return resultado.getInt(1);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package br.com.ccs.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "app.produtos.snapshot")
+public class SnapshotCustoProperties {
+
+    /**
+     * Quantidade máxima de produtos mantidos no snapshot; ao ultrapassá-la
+     * os produtos menos usados são descartados.
+     */
+    private int tamanhoMaximo = 10_000;
+}
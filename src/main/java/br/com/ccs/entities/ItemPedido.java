@@ -1,7 +1,9 @@
 package br.com.ccs.entities;
 
+import br.com.ccs.ids.GeradorUuidV7;
 import jakarta.persistence.*;
 import lombok.*;
+import org.springframework.data.domain.Persistable;
 
 import java.math.BigDecimal;
 import java.util.UUID;
@@ -11,7 +13,7 @@ import java.util.UUID;
 @Data
 @Builder
 @Entity
-public class ItemPedido {
+public class ItemPedido implements Persistable<UUID> {
 
     @Id
     private UUID id;
@@ -23,8 +25,41 @@ public class ItemPedido {
     private Integer quantidade;
     private BigDecimal valorUnitario;
 
+    /**
+     * Mesmo critério de {@link Pedido#isNew()}.
+     */
+    @Transient
+    @Builder.Default
+    @Getter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private boolean novo = true;
+
+    @Override
+    public boolean isNew() {
+        return novo;
+    }
+
+    @PostLoad
+    void marcarComoCarregado() {
+        novo = false;
+    }
+
+    @PostPersist
+    void marcarComoPersistido() {
+        novo = false;
+        RestauracaoEntidadesNovas.restaurarNoRollback(() -> novo = true);
+    }
+
     public void setProduto(Produto produto) {
         this.produto = produto;
         this.valorUnitario = produto.getValorVenda();
     }
+
+    @PrePersist
+    public void gerarIdSeAusente() {
+        if (id == null) {
+            id = GeradorUuidV7.gerar();
+        }
+    }
 }
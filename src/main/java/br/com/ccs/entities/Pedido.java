@@ -1,10 +1,16 @@
 package br.com.ccs.entities;
 
+import br.com.ccs.ids.GeradorUuidV7;
 import jakarta.persistence.*;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.springframework.data.domain.Persistable;
 
 import java.util.List;
 import java.util.UUID;
@@ -14,10 +20,52 @@ import java.util.UUID;
 @Data
 @Builder
 @Entity
-public class Pedido {
+public class Pedido implements Persistable<UUID> {
 
     @Id
     private UUID id;
     @OneToMany(fetch = FetchType.LAZY, cascade = CascadeType.ALL, mappedBy = "pedido")
     private List<ItemPedido> itens;
+
+    /**
+     * O id é atribuído pela aplicação, então o Spring Data não consegue inferir pelo id
+     * se a entidade é nova. Sem isso, {@code save} faria {@code merge} e um SELECT por
+     * entidade antes de cada INSERT.
+     */
+    @Transient
+    @Builder.Default
+    @Getter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private boolean novo = true;
+
+    @Override
+    public boolean isNew() {
+        return novo;
+    }
+
+    @PostLoad
+    void marcarComoCarregado() {
+        novo = false;
+    }
+
+    /**
+     * A inserção só vale se a transação for confirmada: no rollback o pedido volta a ser novo.
+     */
+    @PostPersist
+    void marcarComoPersistido() {
+        novo = false;
+        RestauracaoEntidadesNovas.restaurarNoRollback(() -> novo = true);
+    }
+
+    /**
+     * Público para que o id possa ser atribuído antes da gravação, quando precisa ser
+     * conhecido mesmo que o pedido seja rejeitado.
+     */
+    @PrePersist
+    public void gerarIdSeAusente() {
+        if (id == null) {
+            id = GeradorUuidV7.gerar();
+        }
+    }
 }
@@ -1,13 +1,24 @@
 package br.com.ccs.entities;
 
+import br.com.ccs.ids.GeradorUuidV7;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.Transient;
+import jakarta.persistence.Version;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
+import org.springframework.data.domain.Persistable;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -18,7 +29,7 @@ import java.util.UUID;
 @Data
 @Builder
 @Entity
-public class Produto {
+public class Produto implements Persistable<UUID> {
 
     @Id
     private UUID id;
@@ -29,4 +40,46 @@ public class Produto {
     private LocalDateTime dataHoraCriacao;
     @UpdateTimestamp
     private LocalDateTime dataHoraAlteracao;
+    @Version
+    @Column(nullable = false)
+    private Long versao;
+
+    /**
+     * Produto montado por {@link #referencia(ResumoProduto)}: já existe no banco, embora não tenha versão.
+     */
+    @Transient
+    @Builder.Default
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private boolean referencia = false;
+
+    /**
+     * Um produto já gravado, com nome e valor de venda, para ser referenciado por itens de
+     * pedido sem ser carregado do banco. Não tem valor de compra nem versão.
+     */
+    public static Produto referencia(ResumoProduto resumo) {
+        return Produto.builder()
+                .id(resumo.getId())
+                .nome(resumo.getNome())
+                .valorVenda(resumo.getValorVenda())
+                .referencia(true)
+                .build();
+    }
+
+    /**
+     * Um produto só não tem versão antes do primeiro INSERT; no banco a coluna é obrigatória.
+     */
+    @Override
+    public boolean isNew() {
+        return versao == null && !referencia;
+    }
+
+    @PrePersist
+    public void gerarIdSeAusente() {
+        if (id == null) {
+            id = GeradorUuidV7.gerar();
+        }
+    }
 }
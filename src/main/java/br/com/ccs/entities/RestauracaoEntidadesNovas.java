@@ -0,0 +1,47 @@
+package br.com.ccs.entities;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Devolve às entidades o estado de nova quando a transação que as inseriu é desfeita.
+ * <p>
+ * O estado é limpo no {@code @PostPersist}, que roda no flush; se a transação for desfeita
+ * depois disso, a linha não existe, e uma nova tentativa de gravação com as mesmas
+ * instâncias (retry do lock otimista, reagendamento) precisa voltar a inseri-las em vez de
+ * fazer {@code merge}. Uma única sincronização por transação atende todas as entidades.
+ */
+final class RestauracaoEntidadesNovas {
+
+    private static final Object CHAVE = new Object();
+
+    private RestauracaoEntidadesNovas() {
+    }
+
+    @SuppressWarnings("unchecked")
+    static void restaurarNoRollback(Runnable marcarComoNova) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+
+        var restauracoes = (List<Runnable>) TransactionSynchronizationManager.getResource(CHAVE);
+        if (restauracoes == null) {
+            var registradas = new ArrayList<Runnable>();
+            TransactionSynchronizationManager.bindResource(CHAVE, registradas);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(CHAVE);
+                    if (status == STATUS_ROLLED_BACK) {
+                        registradas.forEach(Runnable::run);
+                    }
+                }
+            });
+            restauracoes = registradas;
+        }
+        restauracoes.add(marcarComoNova);
+    }
+}
@@ -0,0 +1,41 @@
+package br.com.ccs.entities;
+
+import jakarta.persistence.Cacheable;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Nome e valor de venda de um {@link Produto}, lidos da mesma tabela, para montar itens de
+ * pedido sem carregar o produto inteiro.
+ * <p>
+ * Somente leitura e sem valor de compra nem versão: as atualizações de custo não o alteram,
+ * então ele pode ficar no cache de segundo nível sem ser invalidado por elas.
+ */
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@AllArgsConstructor
+@Entity
+@Immutable
+@Table(name = "produto")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY, region = ResumoProduto.REGIAO_CACHE)
+public class ResumoProduto {
+
+    public static final String REGIAO_CACHE = "produtos";
+
+    @Id
+    private UUID id;
+    private String nome;
+    private BigDecimal valorVenda;
+}
@@ -0,0 +1,15 @@
+package br.com.ccs.exceptions;
+
+import br.com.ccs.services.dto.ProgressoAtualizacao;
+import lombok.Getter;
+
+@Getter
+public class AtualizacaoLoteException extends RuntimeException {
+
+    private final ProgressoAtualizacao progresso;
+
+    public AtualizacaoLoteException(String message, ProgressoAtualizacao progresso, Throwable cause) {
+        super(message, cause);
+        this.progresso = progresso;
+    }
+}
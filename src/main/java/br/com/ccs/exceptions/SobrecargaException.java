@@ -0,0 +1,7 @@
+package br.com.ccs.exceptions;
+
+public class SobrecargaException extends RuntimeException {
+    public SobrecargaException(String message) {
+        super(message);
+    }
+}
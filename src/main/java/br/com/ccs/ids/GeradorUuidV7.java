@@ -0,0 +1,50 @@
+package br.com.ccs.ids;
+
+import java.time.Clock;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Gera UUIDs versão 7 (RFC 9562): 48 bits de epoch em milissegundos, seguidos de um
+ * contador de 12 bits e 62 bits aleatórios.
+ * <p>
+ * Os ids gerados por esta JVM são estritamente crescentes na ordem sem sinal usada pelo
+ * H2 e por {@link br.com.ccs.locks.OrdemCanonicaIds}, então as inserções vão sempre para
+ * o fim do índice da chave primária em vez de se espalharem pela árvore como no v4.
+ * <p>
+ * O timestamp e o contador ficam em um único {@link AtomicLong} atualizado por CAS, sem
+ * lock global. Se mais de 4096 ids forem pedidos no mesmo milissegundo, o contador
+ * transborda para o milissegundo seguinte, mantendo a unicidade e a ordem.
+ */
+public final class GeradorUuidV7 {
+
+    private static final int BITS_CONTADOR = 12;
+    private static final long VERSAO = 0x7000L;
+    private static final long VARIANTE = 0x8000_0000_0000_0000L;
+    private static final long MASCARA_CONTADOR = (1L << BITS_CONTADOR) - 1;
+    private static final long MASCARA_ALEATORIA = 0x3FFF_FFFF_FFFF_FFFFL;
+    private static final AtomicLong ULTIMO_ESTADO = new AtomicLong();
+    private static final Clock CLOCK = Clock.systemUTC();
+
+    private GeradorUuidV7() {
+    }
+
+    public static UUID gerar() {
+        var estado = proximoEstado(CLOCK.millis() << BITS_CONTADOR);
+        var timestamp = estado >>> BITS_CONTADOR;
+        var msb = timestamp << 16 | VERSAO | estado & MASCARA_CONTADOR;
+        var lsb = VARIANTE | ThreadLocalRandom.current().nextLong() & MASCARA_ALEATORIA;
+        return new UUID(msb, lsb);
+    }
+
+    private static long proximoEstado(long estadoRelogio) {
+        while (true) {
+            var ultimo = ULTIMO_ESTADO.get();
+            var proximo = Math.max(estadoRelogio, ultimo + 1);
+            if (ULTIMO_ESTADO.compareAndSet(ultimo, proximo)) {
+                return proximo;
+            }
+        }
+    }
+}
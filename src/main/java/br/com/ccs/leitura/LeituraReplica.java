@@ -0,0 +1,66 @@
+package br.com.ccs.leitura;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.function.Supplier;
+
+/**
+ * Executa leituras sem lock em uma transação {@code readOnly} própria, roteada para a réplica
+ * quando {@code app.datasource.replica.habilitada}; sem a réplica, a leitura roda no banco principal.
+ * <p>
+ * O roteamento é sempre uma escolha explícita de quem chama: {@code @Transactional(readOnly = true)}
+ * sozinho continua no principal, porque a réplica pode estar atrasada e nem toda leitura tolera
+ * isso. Chamada dentro de uma transação já aberta, a leitura participa dela e fica no banco
+ * dessa transação, vendo o que ela já escreveu.
+ * <p>
+ * Leituras com lock nunca podem ir para a réplica: os locks não valeriam para quem grava no
+ * principal. Elas chamam {@link #exigirPrincipal(String)}.
+ */
+@Component
+public class LeituraReplica {
+
+    private static final ThreadLocal<Boolean> ATIVA = ThreadLocal.withInitial(() -> false);
+
+    private final TransactionTemplate transactionTemplate;
+
+    public LeituraReplica(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    public <T> T executar(Supplier<T> leitura) {
+        return transactionTemplate.execute(status -> {
+            if (!status.isNewTransaction()) {
+                return leitura.get();
+            }
+            ATIVA.set(true);
+            try {
+                return leitura.get();
+            } finally {
+                ATIVA.remove();
+            }
+        });
+    }
+
+    /**
+     * Indica se as conexões obtidas agora pela thread corrente vão para a réplica: apenas
+     * dentro de {@link #executar(Supplier)} e em transações {@code readOnly}, de forma que uma
+     * transação de escrita aberta dentro dela ({@code REQUIRES_NEW}) continue no principal.
+     */
+    public static boolean isRoteadaParaReplica() {
+        return ATIVA.get() && TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    /**
+     * @throws IllegalStateException se a thread corrente estiver lendo da réplica
+     */
+    public static void exigirPrincipal(String operacao) {
+        if (isRoteadaParaReplica()) {
+            throw new IllegalStateException(operacao + " bloqueia linhas e precisa do banco principal,"
+                    + " mas foi chamada dentro de uma leitura na réplica");
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package br.com.ccs.locks;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Backoff exponencial com jitter usado entre tentativas que disputam os mesmos produtos.
+ * <p>
+ * A espera dobra a cada tentativa até {@code maximo} e é sorteada entre a metade e o valor
+ * cheio, para que as tentativas concorrentes não voltem todas ao mesmo tempo.
+ */
+public final class BackoffExponencial {
+
+    private BackoffExponencial() {
+    }
+
+    public static long esperaMillis(int tentativa, Duration inicial, Duration maximo) {
+        var backoff = Math.min(maximo.toMillis(), inicial.toMillis() << Math.min(tentativa - 1, 20));
+        return ThreadLocalRandom.current().nextLong(backoff / 2, backoff + 1);
+    }
+}
@@ -0,0 +1,206 @@
+package br.com.ccs.locks;
+
+import br.com.ccs.config.LockProperties;
+import br.com.ccs.exceptions.RepositoryException;
+import br.com.ccs.metrics.LockMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * Serializa na JVM o acesso aos produtos antes que as transações disputem os locks de linha
+ * no banco, de forma que apenas quem já venceu a disputa local ocupa uma conexão do pool.
+ * <p>
+ * Cada produto é mapeado para uma de {@code app.lock.coordenador.listras} listras, e as listras
+ * são sempre adquiridas em ordem crescente de índice. Ordenar pelos ids não bastaria: dois
+ * produtos podem cair na mesma listra e inverter a ordem entre dois conjuntos de ids.
+ * <p>
+ * Os locks são reentrantes, então quem já segura as listras antes de abrir a transação pode
+ * passar de novo por {@link #bloquearAteFimTransacao(Collection)} sem esperar.
+ * Desabilitado, o coordenador apenas executa as operações recebidas.
+ * <p>
+ * Com uma estratégia {@linkplain EstrategiaLock#isCompartilhada() compartilhada} os pedidos
+ * seguram as listras em modo de leitura e as escritas no catálogo as seguram em modo exclusivo:
+ * validações dos mesmos produtos não se excluem na JVM, e a atualização do catálogo espera por
+ * elas. O coordenador não substitui o lock do banco, que continua protegendo a validação entre
+ * JVMs e contra quem não passa por aqui.
+ */
+@Component
+@Slf4j
+public class CoordenadorLocksProdutos {
+
+    private static final String ESTRATEGIA_METRICAS = "COORDENADOR_LOCAL";
+
+    private final LockProperties.Coordenador properties;
+    private final LockMetrics lockMetrics;
+    private final boolean compartilhado;
+    private final ReentrantReadWriteLock[] listras;
+
+    public CoordenadorLocksProdutos(LockProperties lockProperties, LockMetrics lockMetrics) {
+        this.properties = lockProperties.getCoordenador();
+        this.lockMetrics = lockMetrics;
+        this.compartilhado = lockProperties.getEstrategia().isCompartilhada();
+        this.listras = IntStream.range(0, properties.getListras())
+                .mapToObj(i -> new ReentrantReadWriteLock(properties.isJusto()))
+                .toArray(ReentrantReadWriteLock[]::new);
+    }
+
+    public boolean isHabilitado() {
+        return properties.isHabilitado();
+    }
+
+    public void executar(Collection<UUID> ids, Runnable operacao) {
+        executar(ids, () -> {
+            operacao.run();
+            return null;
+        });
+    }
+
+    public <T> T executar(Collection<UUID> ids, Supplier<T> operacao) {
+        return executarComListras(isHabilitado() ? indicesListras(ids) : new int[0], compartilhado, operacao);
+    }
+
+    /**
+     * Executa a operação segurando todas as listras, para operações que bloqueiam o catálogo inteiro.
+     */
+    public void executarComTodas(Runnable operacao) {
+        executarComTodas(() -> {
+            operacao.run();
+            return null;
+        });
+    }
+
+    public <T> T executarComTodas(Supplier<T> operacao) {
+        return executarComListras(isHabilitado() ? IntStream.range(0, listras.length).toArray() : new int[0], false, operacao);
+    }
+
+    /**
+     * Executa a operação apenas com os produtos cujas listras estão livres, adquiridas em modo
+     * exclusivo sem nenhuma espera; os produtos das listras ocupadas ficam fora da lista
+     * recebida pela operação, na mesma ordem de {@code ids}. Para jobs em segundo plano, que
+     * preferem adiar um produto a esperar por quem o segura.
+     */
+    public <T> T executarComDisponiveis(List<UUID> ids, Function<List<UUID>, T> operacao) {
+        if (!isHabilitado()) {
+            return operacao.apply(ids);
+        }
+
+        var adquiridas = Arrays.stream(indicesListras(ids))
+                .filter(indice -> listras[indice].writeLock().tryLock())
+                .toArray();
+        try {
+            var livres = new BitSet(listras.length);
+            Arrays.stream(adquiridas).forEach(livres::set);
+            return operacao.apply(ids.stream()
+                    .filter(id -> livres.get(indiceListra(id)))
+                    .toList());
+        } finally {
+            liberar(adquiridas, adquiridas.length, false);
+        }
+    }
+
+    /**
+     * Adquire as listras dos produtos e só as libera no fim da transação corrente, junto
+     * com os locks de linha do banco.
+     */
+    public void bloquearAteFimTransacao(Collection<UUID> ids) {
+        if (!isHabilitado() || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+
+        var indices = indicesListras(ids);
+        adquirir(indices, compartilhado);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                liberar(indices, indices.length, compartilhado);
+            }
+        });
+    }
+
+    private <T> T executarComListras(int[] indices, boolean leitura, Supplier<T> operacao) {
+        adquirir(indices, leitura);
+        try {
+            return operacao.get();
+        } finally {
+            liberar(indices, indices.length, leitura);
+        }
+    }
+
+    private void adquirir(int[] indices, boolean leitura) {
+        if (indices.length == 0) {
+            return;
+        }
+        if (Arrays.stream(indices).allMatch(indice -> seguradaPelaThreadAtual(listras[indice], leitura))) {
+            Arrays.stream(indices).forEach(indice -> lock(indice, leitura).lock());
+            return;
+        }
+
+        var adquiridas = lockMetrics.registrarEspera(ESTRATEGIA_METRICAS, () -> tentarAdquirir(indices, leitura));
+        if (adquiridas < indices.length) {
+            liberar(indices, adquiridas, leitura);
+            lockMetrics.registrarExcecao(RepositoryException.class);
+            throw new RepositoryException("\nTempo máximo de espera pelos locks locais dos produtos excedido: "
+                    + properties.getTempoMaximoEspera(), null);
+        }
+    }
+
+    /**
+     * @return quantas listras, na ordem de {@code indices}, foram adquiridas antes de esgotar o prazo
+     */
+    private int tentarAdquirir(int[] indices, boolean leitura) {
+        var prazo = System.nanoTime() + properties.getTempoMaximoEspera().toNanos();
+        for (var i = 0; i < indices.length; i++) {
+            try {
+                if (!lock(indices[i], leitura).tryLock(prazo - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                    return i;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.warn("\nEspera pelos locks locais dos produtos interrompida");
+                return i;
+            }
+        }
+        return indices.length;
+    }
+
+    private void liberar(int[] indices, int quantidade, boolean leitura) {
+        for (var i = quantidade - 1; i >= 0; i--) {
+            lock(indices[i], leitura).unlock();
+        }
+    }
+
+    private Lock lock(int indice, boolean leitura) {
+        return leitura ? listras[indice].readLock() : listras[indice].writeLock();
+    }
+
+    private static boolean seguradaPelaThreadAtual(ReentrantReadWriteLock listra, boolean leitura) {
+        return leitura ? listra.getReadHoldCount() > 0 : listra.isWriteLockedByCurrentThread();
+    }
+
+    private int[] indicesListras(Collection<UUID> ids) {
+        return ids.stream()
+                .mapToInt(this::indiceListra)
+                .distinct()
+                .sorted()
+                .toArray();
+    }
+
+    private int indiceListra(UUID id) {
+        var hash = id.hashCode();
+        return Math.floorMod(hash ^ hash >>> 16, listras.length);
+    }
+}
@@ -0,0 +1,129 @@
+package br.com.ccs.locks;
+
+import br.com.ccs.config.LockProperties;
+import br.com.ccs.config.SessoesBancoDataSource;
+import br.com.ccs.exceptions.RepositoryException;
+import br.com.ccs.metrics.LockMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Registra quem segurava os locks quando a busca dos produtos falha por timeout de lock ou deadlock.
+ * <p>
+ * O grafo de espera vem de {@code INFORMATION_SCHEMA.SESSIONS} do H2: {@code BLOCKER_ID} dá as
+ * arestas e {@code CONTAINS_UNCOMMITTED} aponta quem segura locks de linha, que no MVStore não
+ * aparecem em {@code INFORMATION_SCHEMA.LOCKS}. Com {@code identificar-threads}, as sessões ganham
+ * o nome da thread que as retirou do pool, registrado pelo {@link SessoesBancoDataSource}.
+ * <p>
+ * A captura usa uma conexão do pool, justamente quando ele pode estar disputado, então só uma
+ * fração das falhas ({@code taxa-amostragem}) e no máximo uma a cada {@code intervalo-minimo}
+ * disparam uma captura, sempre fora da thread que falhou.
+ */
+@Component
+@Slf4j
+public class DiagnosticoLocks {
+
+    private static final String CONSULTA_SESSOES = """
+            select session_id, blocker_id, contains_uncommitted, executing_statement, executing_statement_start
+              from information_schema.sessions
+             where blocker_id is not null or contains_uncommitted
+             order by session_id""";
+
+    private final DataSource dataSource;
+    private final LockProperties.Diagnostico properties;
+    private final LockMetrics lockMetrics;
+    private final ExecutorService executor;
+    private final AtomicLong proximaCaptura = new AtomicLong(System.nanoTime());
+
+    public DiagnosticoLocks(DataSource dataSource, LockProperties lockProperties, LockMetrics lockMetrics) {
+        this.dataSource = dataSource;
+        this.properties = lockProperties.getDiagnostico();
+        this.lockMetrics = lockMetrics;
+        this.executor = Executors.newSingleThreadExecutor(
+                Thread.ofPlatform().name("diagnostico-locks").daemon().factory());
+    }
+
+    /**
+     * Agenda, se a amostragem e o limite de frequência permitirem, a captura do grafo de espera
+     * para a falha de lock recebida na thread corrente.
+     */
+    public void registrarFalha(RuntimeException falha) {
+        if (!properties.isHabilitado()) {
+            return;
+        }
+        if (ThreadLocalRandom.current().nextDouble() >= properties.getTaxaAmostragem() || !reservarCaptura()) {
+            lockMetrics.registrarDiagnostico("descartado");
+            return;
+        }
+
+        lockMetrics.registrarDiagnostico("capturado");
+        var transacao = TransactionSynchronizationManager.getCurrentTransactionName();
+        var origem = "thread " + SessoesBancoDataSource.descrever(Thread.currentThread())
+                + (Objects.isNull(transacao) ? "" : " na transação " + transacao);
+        executor.execute(() -> {
+            try {
+                var grafo = capturar();
+                log.warn("\nFalha de lock em {}: {}\nGrafo de espera de locks:{}",
+                        origem, falha.getMessage(), grafo.isVazio() ? " nenhuma sessão segurando locks" : grafo.formatar());
+            } catch (RuntimeException e) {
+                log.warn("\nNão foi possível capturar o grafo de espera de locks", e);
+            }
+        });
+    }
+
+    /**
+     * Consulta imediatamente as sessões que esperam por lock ou seguram locks no banco.
+     */
+    public GrafoEsperaLocks capturar() {
+        try (var conexao = dataSource.getConnection();
+             var statement = conexao.createStatement();
+             var resultado = statement.executeQuery(CONSULTA_SESSOES)) {
+            var sessoes = new ArrayList<GrafoEsperaLocks.Sessao>();
+            var sessoesBanco = dataSource.isWrapperFor(SessoesBancoDataSource.class)
+                    ? dataSource.unwrap(SessoesBancoDataSource.class)
+                    : null;
+            var agora = OffsetDateTime.now();
+
+            while (resultado.next()) {
+                var id = resultado.getInt("session_id");
+                var inicio = resultado.getObject("executing_statement_start", OffsetDateTime.class);
+                sessoes.add(new GrafoEsperaLocks.Sessao(
+                        id,
+                        resultado.getObject("blocker_id", Integer.class),
+                        resultado.getBoolean("contains_uncommitted"),
+                        Objects.isNull(sessoesBanco) ? null : sessoesBanco.thread(id).orElse(null),
+                        resultado.getString("executing_statement"),
+                        Objects.isNull(inicio) ? Duration.ZERO : Duration.between(inicio, agora)));
+            }
+            return new GrafoEsperaLocks(sessoes);
+
+        } catch (SQLException e) {
+            throw new RepositoryException("Erro ao consultar as sessões do banco", e);
+        }
+    }
+
+    private boolean reservarCaptura() {
+        var agora = System.nanoTime();
+        var proxima = proximaCaptura.get();
+        return agora - proxima >= 0
+                && proximaCaptura.compareAndSet(proxima, agora + properties.getIntervaloMinimo().toNanos());
+    }
+
+    @PreDestroy
+    void encerrar() {
+        executor.shutdownNow();
+    }
+}
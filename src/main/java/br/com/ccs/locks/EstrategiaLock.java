@@ -0,0 +1,73 @@
+package br.com.ccs.locks;
+
+import jakarta.persistence.LockModeType;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.LockOptions;
+
+/**
+ * Forma como os produtos de um pedido são protegidos contra alterações
+ * do valor de compra durante a validação do valor mínimo de venda.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum EstrategiaLock {
+
+    /**
+     * Bloqueia as linhas dos produtos até o fim da transação do pedido.
+     */
+    PESSIMISTA_ESCRITA(LockModeType.PESSIMISTIC_WRITE, LockOptions.WAIT_FOREVER),
+
+    /**
+     * Bloqueia as linhas em modo compartilhado ({@code FOR SHARE}) até o fim da transação do
+     * pedido: pedidos com os mesmos produtos não se excluem, e apenas a atualização do valor
+     * de compra, que bloqueia em modo exclusivo, espera por eles.
+     * <p>
+     * Exige um banco com lock compartilhado de linha. Em dialetos que traduzem o lock de leitura
+     * para o mesmo SQL do lock de escrita, como o H2, a aplicação não sobe com esta estratégia;
+     * veja {@link VerificadorEstrategiaLock}.
+     */
+    PESSIMISTA_LEITURA(LockModeType.PESSIMISTIC_READ, LockOptions.WAIT_FOREVER),
+
+    /**
+     * Igual a {@link #PESSIMISTA_ESCRITA}, mas falha imediatamente se algum produto já estiver bloqueado.
+     */
+    PESSIMISTA_NOWAIT(LockModeType.PESSIMISTIC_WRITE, LockOptions.NO_WAIT),
+
+    /**
+     * Igual a {@link #PESSIMISTA_ESCRITA}, mas desiste depois de {@code app.lock.timeout-lock}.
+     * No H2 o tempo é arredondado para segundos inteiros pelo Hibernate.
+     */
+    PESSIMISTA_TIMEOUT(LockModeType.PESSIMISTIC_WRITE, LockOptions.WAIT_FOREVER),
+
+    /**
+     * Não bloqueia as linhas; a versão lida de cada produto é conferida no commit
+     * e, havendo conflito, a gravação do pedido é repetida.
+     */
+    OTIMISTA(LockModeType.OPTIMISTIC, LockOptions.WAIT_FOREVER),
+
+    /**
+     * Como {@link #OTIMISTA}, mas o valor de compra e a versão vêm do snapshot em memória;
+     * o banco só é consultado para os produtos ausentes e para conferir as versões no commit.
+     */
+    OTIMISTA_SNAPSHOT(LockModeType.OPTIMISTIC, LockOptions.WAIT_FOREVER);
+
+    private final LockModeType lockModeType;
+
+    /**
+     * Timeout de lock em milissegundos no formato de {@link LockOptions#setTimeOut(int)}.
+     */
+    private final int timeoutLock;
+
+    public boolean usaSnapshot() {
+        return this == OTIMISTA_SNAPSHOT;
+    }
+
+    public boolean isCompartilhada() {
+        return lockModeType == LockModeType.PESSIMISTIC_READ;
+    }
+
+    public boolean usaTimeoutConfigurado() {
+        return this == PESSIMISTA_TIMEOUT;
+    }
+}
@@ -0,0 +1,74 @@
+package br.com.ccs.locks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Retrato das sessões do banco envolvidas em disputas de lock: as que esperam, com a sessão
+ * que as bloqueia, e as que seguram alterações ou locks ainda não confirmados.
+ */
+public record GrafoEsperaLocks(List<Sessao> sessoes) {
+
+    private static final int TAMANHO_MAXIMO_INSTRUCAO = 120;
+
+    /**
+     * @param bloqueadaPor sessão pela qual esta espera, ou {@code null} se não estiver esperando
+     * @param seguraLocks  se a sessão tem alterações ou locks de linha ainda não confirmados
+     * @param thread       última thread da aplicação que retirou a sessão do pool, quando conhecida
+     * @param espera       há quanto tempo a instrução corrente executa
+     */
+    public record Sessao(int id, Integer bloqueadaPor, boolean seguraLocks, String thread,
+                         String instrucao, Duration espera) {
+    }
+
+    public List<Sessao> bloqueadas() {
+        return sessoes.stream().filter(sessao -> Objects.nonNull(sessao.bloqueadaPor())).toList();
+    }
+
+    public Optional<Sessao> sessao(int id) {
+        return sessoes.stream().filter(sessao -> sessao.id() == id).findFirst();
+    }
+
+    public boolean isVazio() {
+        return sessoes.isEmpty();
+    }
+
+    /**
+     * Uma linha por aresta de espera, seguida das sessões que seguram locks sem esperar por ninguém.
+     */
+    public String formatar() {
+        var texto = new StringBuilder();
+        bloqueadas().forEach(sessao -> texto.append("\n  ")
+                .append(nome(sessao.id()))
+                .append(" -> ").append(nome(sessao.bloqueadaPor()))
+                .append(" há ").append(sessao.espera().toMillis()).append("ms: ")
+                .append(resumir(sessao.instrucao())));
+        sessoes.stream()
+                .filter(sessao -> sessao.seguraLocks() && Objects.isNull(sessao.bloqueadaPor()))
+                .forEach(sessao -> texto.append("\n  ")
+                        .append(nome(sessao.id()))
+                        .append(" segura locks, ")
+                        .append(Objects.isNull(sessao.instrucao()) ? "ociosa" : "executando: " + resumir(sessao.instrucao())));
+        return texto.toString();
+    }
+
+    private String nome(int id) {
+        return "sessão " + id + sessao(id)
+                .map(Sessao::thread)
+                .filter(Objects::nonNull)
+                .map(thread -> " [" + thread + "]")
+                .orElse("");
+    }
+
+    private static String resumir(String instrucao) {
+        if (Objects.isNull(instrucao)) {
+            return "";
+        }
+        var compacta = instrucao.replaceAll("\\s+", " ").strip();
+        return compacta.length() <= TAMANHO_MAXIMO_INSTRUCAO
+                ? compacta
+                : compacta.substring(0, TAMANHO_MAXIMO_INSTRUCAO) + "...";
+    }
+}
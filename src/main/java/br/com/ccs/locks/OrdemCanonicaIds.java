@@ -0,0 +1,34 @@
+package br.com.ccs.locks;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Ordem única em que os produtos devem ser bloqueados por todos os fluxos.
+ * <p>
+ * Como toda transação adquire os locks na mesma sequência, nenhuma delas pode ficar
+ * esperando por um produto enquanto segura outro que a transação concorrente ainda
+ * precisa, eliminando o ciclo que causa deadlocks.
+ * <p>
+ * A comparação é feita sem sinal, byte a byte, que é a mesma ordenação usada pelo banco
+ * no índice da chave primária; {@link UUID#compareTo(UUID)} compara com sinal e divergiria
+ * do {@code ORDER BY id}.
+ */
+public final class OrdemCanonicaIds {
+
+    public static final Comparator<UUID> COMPARADOR = Comparator
+            .comparing(UUID::getMostSignificantBits, Long::compareUnsigned)
+            .thenComparing(UUID::getLeastSignificantBits, Long::compareUnsigned);
+
+    private OrdemCanonicaIds() {
+    }
+
+    public static List<UUID> ordenar(Collection<UUID> ids) {
+        return ids.stream()
+                .distinct()
+                .sorted(COMPARADOR)
+                .toList();
+    }
+}
@@ -0,0 +1,61 @@
+package br.com.ccs.locks;
+
+import br.com.ccs.config.LockProperties;
+import br.com.ccs.metrics.LockMetrics;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+/**
+ * Repete uma transação que falhou por conflito de versão, aguardando um
+ * backoff exponencial com jitter entre as tentativas.
+ * <p>
+ * Deve envolver a transação inteira: o conflito só é detectado no commit,
+ * então repetir apenas parte dela não teria efeito.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RetryLockOtimista {
+
+    private final LockProperties lockProperties;
+    private final LockMetrics lockMetrics;
+
+    public void executar(Runnable operacao) {
+        executar(() -> {
+            operacao.run();
+            return null;
+        });
+    }
+
+    public <T> T executar(Supplier<T> operacao) {
+        var retry = lockProperties.getRetry();
+        var tentativa = 1;
+
+        while (true) {
+            try {
+                return operacao.get();
+            } catch (OptimisticLockingFailureException e) {
+                if (tentativa >= retry.getMaxTentativas()) {
+                    log.warn("\nConflito de versão persistiu após {} tentativas", tentativa);
+                    throw e;
+                }
+                log.info("\nConflito de versão na tentativa {}, repetindo operação", tentativa);
+                lockMetrics.registrarRetentativa(OptimisticLockingFailureException.class);
+                aguardar(tentativa++, retry);
+            }
+        }
+    }
+
+    private static void aguardar(int tentativa, LockProperties.Retry retry) {
+        try {
+            Thread.sleep(BackoffExponencial.esperaMillis(tentativa, retry.getBackoffInicial(), retry.getBackoffMaximo()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Retry interrompido", e);
+        }
+    }
+}
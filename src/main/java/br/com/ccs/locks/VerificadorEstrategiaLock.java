@@ -0,0 +1,35 @@
+package br.com.ccs.locks;
+
+import br.com.ccs.config.LockProperties;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Impede a aplicação de subir com uma estratégia {@linkplain EstrategiaLock#isCompartilhada()
+ * compartilhada} em um banco cujo dialeto traduz o lock de leitura para o mesmo SQL do lock
+ * de escrita, como o H2, em que {@code PESSIMISTIC_READ} vira {@code FOR UPDATE}: ali os
+ * pedidos com os mesmos produtos se serializariam no banco, ao contrário do que a estratégia promete.
+ */
+@Component
+public class VerificadorEstrategiaLock {
+
+    public VerificadorEstrategiaLock(LockProperties lockProperties, EntityManagerFactory entityManagerFactory) {
+        verificar(lockProperties.getEstrategia(),
+                entityManagerFactory.unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect());
+    }
+
+    static void verificar(EstrategiaLock estrategia, Dialect dialect) {
+        if (!estrategia.isCompartilhada()) {
+            return;
+        }
+
+        var lockLeitura = dialect.getReadLockString(estrategia.getTimeoutLock());
+        if (lockLeitura.equals(dialect.getWriteLockString(estrategia.getTimeoutLock()))) {
+            throw new IllegalStateException("A estratégia " + estrategia + " exige lock compartilhado de linha, mas o dialeto "
+                    + dialect.getClass().getSimpleName() + " traduz o lock de leitura para '" + lockLeitura.strip()
+                    + "', o mesmo do lock de escrita");
+        }
+    }
+}
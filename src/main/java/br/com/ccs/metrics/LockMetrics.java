@@ -0,0 +1,94 @@
+package br.com.ccs.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.Supplier;
+
+/**
+ * Métricas de contenção sobre os locks dos produtos.
+ * <p>
+ * Os timers publicam histogramas de percentis, então o mesmo registro serve
+ * tanto para os testes, que leem o {@link MeterRegistry} local, quanto para
+ * um registro externo declarado como bean no lugar dele ({@link br.com.ccs.config.MetricasConfig}).
+ */
+@Component
+public class LockMetrics {
+
+    public static final String ESPERA_LOCK = "produtos.lock.espera";
+    public static final String RETENCAO_LOCK = "produtos.lock.retencao";
+    public static final String FLUSH_ATUALIZACAO = "produtos.atualizacao.flush";
+    public static final String EXCECOES = "produtos.lock.excecoes";
+    public static final String RETENTATIVAS = "produtos.lock.retentativas";
+    public static final String DIAGNOSTICOS = "produtos.lock.diagnosticos";
+
+    private final MeterRegistry meterRegistry;
+
+    public LockMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public <T> T registrarEspera(String estrategia, Supplier<T> aquisicao) {
+        return timer(ESPERA_LOCK, "estrategia", estrategia).record(aquisicao);
+    }
+
+    /**
+     * Mede o tempo entre a aquisição dos locks e o fim da transação corrente,
+     * quando eles são efetivamente liberados pelo banco.
+     */
+    public void registrarRetencaoAteFimTransacao(String estrategia) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+
+        var sample = Timer.start(meterRegistry);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                sample.stop(timer(RETENCAO_LOCK,
+                        "estrategia", estrategia,
+                        "resultado", status == STATUS_COMMITTED ? "commit" : "rollback"));
+            }
+        });
+    }
+
+    public void registrarFlush(String modo, Runnable flush) {
+        timer(FLUSH_ATUALIZACAO, "modo", modo).record(flush);
+    }
+
+    public void registrarExcecao(Class<? extends Exception> excecao) {
+        Counter.builder(EXCECOES)
+                .tag("excecao", excecao.getSimpleName())
+                .register(meterRegistry)
+                .increment();
+    }
+
+    public void registrarRetentativa(Class<? extends Exception> causa) {
+        Counter.builder(RETENTATIVAS)
+                .tag("excecao", causa.getSimpleName())
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * @param resultado {@code capturado} ou {@code descartado} pela amostragem e pelo limite de frequência
+     */
+    public void registrarDiagnostico(String resultado) {
+        Counter.builder(DIAGNOSTICOS)
+                .tag("resultado", resultado)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private Timer timer(String nome, String... tags) {
+        return Timer.builder(nome)
+                .tags(tags)
+                .publishPercentileHistogram()
+                .publishPercentiles(0.5, 0.99, 0.999)
+                .register(meterRegistry);
+    }
+}
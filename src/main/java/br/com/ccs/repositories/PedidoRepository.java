@@ -1,11 +1,36 @@
 package br.com.ccs.repositories;
 
 import br.com.ccs.entities.Pedido;
+import br.com.ccs.repositories.projections.ResumoItemPedido;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
-public interface PedidoRepository extends JpaRepository<Pedido, UUID> {
+public interface PedidoRepository extends JpaRepository<Pedido, UUID>, PedidoRepositoryCustom {
+
+    @EntityGraph(attributePaths = {"itens", "itens.produto"})
+    Optional<Pedido> findComItensById(UUID id);
+
+    /**
+     * Sem paginação de propósito: a página deve ser definida antes por {@link #findIds(Pageable)},
+     * já que limitar uma consulta com fetch de coleção faria o Hibernate paginar em memória.
+     */
+    @EntityGraph(attributePaths = {"itens", "itens.produto"})
+    List<Pedido> findComItensByIdIn(Collection<UUID> ids);
+
+    @Query(value = "select p.id from Pedido p", countQuery = "select count(p) from Pedido p")
+    Page<UUID> findIds(Pageable pageable);
+
+    @Query("select new br.com.ccs.repositories.projections.ResumoItemPedido(i.id, p.id, p.nome, i.quantidade, i.valorUnitario) "
+            + "from ItemPedido i join i.produto p where i.pedido.id = :pedidoId order by i.id")
+    List<ResumoItemPedido> findResumoItensByPedidoId(UUID pedidoId);
 }
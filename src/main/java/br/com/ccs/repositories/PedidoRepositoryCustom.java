@@ -0,0 +1,21 @@
+package br.com.ccs.repositories;
+
+import br.com.ccs.repositories.projections.LinhaExportacaoPedido;
+
+import java.util.function.Consumer;
+
+public interface PedidoRepositoryCustom {
+
+    /**
+     * Percorre todos os itens de pedido com um cursor somente para frente, entregando uma
+     * linha por vez ao consumidor, e devolve a quantidade de linhas lidas.
+     * <p>
+     * As linhas vêm ordenadas pelo id do pedido. Um pedido sem itens gera uma única linha,
+     * com os campos do item e do produto nulos.
+     * <p>
+     * As linhas são projeções, não entidades, então nada se acumula no contexto de
+     * persistência e o uso de memória não depende da quantidade de itens.
+     * Deve ser chamado dentro de uma transação, que mantém o cursor aberto.
+     */
+    long exportarItens(int fetchSize, Consumer<LinhaExportacaoPedido> consumidor);
+}
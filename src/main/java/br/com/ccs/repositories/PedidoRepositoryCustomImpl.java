@@ -0,0 +1,37 @@
+package br.com.ccs.repositories;
+
+import br.com.ccs.repositories.projections.LinhaExportacaoPedido;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.CacheMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.Session;
+
+import java.util.function.Consumer;
+
+@RequiredArgsConstructor
+class PedidoRepositoryCustomImpl implements PedidoRepositoryCustom {
+
+    private final EntityManager entityManager;
+
+    @Override
+    public long exportarItens(int fetchSize, Consumer<LinhaExportacaoPedido> consumidor) {
+        var query = entityManager.unwrap(Session.class)
+                .createQuery("select new br.com.ccs.repositories.projections.LinhaExportacaoPedido("
+                        + "pe.id, i.id, p.id, p.nome, i.quantidade, i.valorUnitario) "
+                        + "from Pedido pe left join pe.itens i left join i.produto p "
+                        + "order by pe.id", LinhaExportacaoPedido.class)
+                .setFetchSize(fetchSize)
+                .setReadOnly(true)
+                .setCacheMode(CacheMode.IGNORE);
+
+        var linhas = 0L;
+        try (var cursor = query.scroll(ScrollMode.FORWARD_ONLY)) {
+            while (cursor.next()) {
+                consumidor.accept(cursor.get());
+                linhas++;
+            }
+        }
+        return linhas;
+    }
+}
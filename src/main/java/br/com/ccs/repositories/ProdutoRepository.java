@@ -2,18 +2,20 @@ package br.com.ccs.repositories;
 
 import br.com.ccs.entities.Produto;
 import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
 import org.springframework.stereotype.Repository;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.UUID;
 
 @Repository
-public interface ProdutoRepository extends JpaRepository<Produto, UUID> {
+public interface ProdutoRepository extends JpaRepository<Produto, UUID>, ProdutoRepositoryCustom {
 
-    @Transactional(readOnly = true)
     @Lock(LockModeType.PESSIMISTIC_WRITE)
-    List<Produto> findByIdIn(List<UUID> ids);
+    List<Produto> findByOrderByIdAsc(Limit limit);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<Produto> findByIdGreaterThanOrderByIdAsc(UUID id, Limit limit);
 }
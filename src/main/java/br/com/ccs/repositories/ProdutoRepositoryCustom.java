@@ -0,0 +1,37 @@
+package br.com.ccs.repositories;
+
+import br.com.ccs.entities.Produto;
+import br.com.ccs.entities.ResumoProduto;
+import br.com.ccs.repositories.projections.CustoProduto;
+import jakarta.persistence.LockModeType;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public interface ProdutoRepositoryCustom {
+
+    /**
+     * Busca os produtos, ordenados por ID, adquirindo o lock informado.
+     * <p>
+     * {@code timeoutLock} segue as convenções de {@link org.hibernate.LockOptions}:
+     * {@code WAIT_FOREVER} usa o timeout padrão do banco, {@code NO_WAIT} falha
+     * imediatamente, {@code SKIP_LOCKED} omite do resultado as linhas bloqueadas por
+     * outras transações e valores positivos são milissegundos.
+     * <p>
+     * Listas de IDs acima de {@code app.produtos.consulta.tamanho-maximo-lista-in} são
+     * enviadas em um único parâmetro de array, com a mesma semântica de lock.
+     */
+    List<Produto> findByIdIn(List<UUID> ids, LockModeType lockModeType, int timeoutLock);
+
+    /**
+     * Busca, sem lock, o valor de compra e a versão dos produtos, em qualquer ordem.
+     */
+    List<CustoProduto> findCustosByIdIn(Collection<UUID> ids);
+
+    /**
+     * Busca, sem lock e em qualquer ordem, o nome e o valor de venda dos produtos, passando
+     * antes pelo cache de segundo nível quando habilitado; os IDs inexistentes são ignorados.
+     */
+    List<ResumoProduto> findResumosByIdIn(Collection<UUID> ids);
+}
@@ -0,0 +1,75 @@
+package br.com.ccs.repositories;
+
+import br.com.ccs.config.ConsultaProdutosProperties;
+import br.com.ccs.config.H2LockDialect;
+import br.com.ccs.entities.Produto;
+import br.com.ccs.entities.ResumoProduto;
+import br.com.ccs.repositories.projections.CustoProduto;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.TypedQuery;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.CacheMode;
+import org.hibernate.LockOptions;
+import org.hibernate.Session;
+import org.hibernate.cfg.AvailableSettings;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+@RequiredArgsConstructor
+class ProdutoRepositoryCustomImpl implements ProdutoRepositoryCustom {
+
+    private final EntityManager entityManager;
+    private final ConsultaProdutosProperties consultaProperties;
+
+    @Override
+    public List<Produto> findByIdIn(List<UUID> ids, LockModeType lockModeType, int timeoutLock) {
+        var query = criarConsultaPorIds("select p from Produto p", " order by p.id", ids, Produto.class)
+                .setLockMode(lockModeType);
+
+        if (timeoutLock != LockOptions.WAIT_FOREVER) {
+            query.setHint(AvailableSettings.JAKARTA_LOCK_TIMEOUT, timeoutLock);
+        }
+
+        return query.getResultList();
+    }
+
+    @Override
+    public List<CustoProduto> findCustosByIdIn(Collection<UUID> ids) {
+        return criarConsultaPorIds("select new br.com.ccs.repositories.projections.CustoProduto(p.id, p.valorCompra, p.versao) "
+                + "from Produto p", "", ids, CustoProduto.class)
+                .getResultList();
+    }
+
+    /**
+     * Sem um {@link CacheMode} explícito, o {@code multiLoad} do Hibernate 6.4 grava no cache de
+     * segundo nível mas não o consulta.
+     */
+    @Override
+    public List<ResumoProduto> findResumosByIdIn(Collection<UUID> ids) {
+        return entityManager.unwrap(Session.class)
+                .byMultipleIds(ResumoProduto.class)
+                .with(CacheMode.NORMAL)
+                .multiLoad(List.copyOf(ids))
+                .stream()
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    /**
+     * Listas pequenas vão em um {@code IN}, que o Hibernate completa até a próxima potência de 2
+     * ({@code in_clause_parameter_padding}) para reaproveitar o plano; as grandes vão em um único
+     * parâmetro de array, com um SQL só, por maior que seja a lista.
+     */
+    private <T> TypedQuery<T> criarConsultaPorIds(String consulta, String ordenacao, Collection<UUID> ids, Class<T> tipo) {
+        if (ids.size() > consultaProperties.getTamanhoMaximoListaIn()) {
+            return entityManager.createQuery(consulta + " where " + H2LockDialect.ALGUM_DE + "(p.id, :ids)" + ordenacao, tipo)
+                    .setParameter("ids", ids.toArray(UUID[]::new));
+        }
+        return entityManager.createQuery(consulta + " where p.id in :ids" + ordenacao, tipo)
+                .setParameter("ids", ids);
+    }
+}
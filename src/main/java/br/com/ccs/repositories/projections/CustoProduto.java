@@ -0,0 +1,7 @@
+package br.com.ccs.repositories.projections;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+public record CustoProduto(UUID id, BigDecimal valorCompra, Long versao) {
+}
@@ -0,0 +1,8 @@
+package br.com.ccs.repositories.projections;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+public record LinhaExportacaoPedido(UUID pedidoId, UUID itemId, UUID produtoId, String nomeProduto,
+                                    Integer quantidade, BigDecimal valorUnitario) {
+}
@@ -0,0 +1,98 @@
+package br.com.ccs.services;
+
+import br.com.ccs.admissao.LimitadorConcorrencia;
+import br.com.ccs.config.AdmissaoPedidosProperties;
+import br.com.ccs.entities.Pedido;
+import br.com.ccs.exceptions.LockModeException;
+import br.com.ccs.exceptions.PrecoVendaInvalidoException;
+import br.com.ccs.exceptions.RepositoryException;
+import br.com.ccs.services.dto.ResultadoPedido;
+import com.zaxxer.hikari.HikariConfigMXBean;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Porta de entrada assíncrona para a gravação de pedidos, que admite no máximo tantos pedidos
+ * simultâneos quanto o {@link LimitadorConcorrencia} permitir, com teto no tamanho do pool de
+ * conexões.
+ * <p>
+ * Cada pedido admitido roda em uma virtual thread; o excedente espera na fila do limitador,
+ * em vez de esperar por uma conexão no pool ou por um lock de linha no banco, e é rejeitado
+ * com {@link br.com.ccs.exceptions.SobrecargaException} quando a fila não comporta mais.
+ */
+@Component
+public class AdmissaoPedidos {
+
+    private final PedidoService pedidoService;
+    private final ExecutorService executor;
+    private final LimitadorConcorrencia limitador;
+
+    public AdmissaoPedidos(PedidoService pedidoService, AdmissaoPedidosProperties properties,
+                           DataSource dataSource, MeterRegistry meterRegistry) {
+        this.pedidoService = pedidoService;
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        this.limitador = new LimitadorConcorrencia(properties,
+                Objects.requireNonNullElseGet(properties.getLimiteMaximo(), () -> tamanhoPool(dataSource)),
+                executor, AdmissaoPedidos::indicaSobrecarga);
+
+        Gauge.builder("pedidos.admissao.limite", limitador, LimitadorConcorrencia::limite).register(meterRegistry);
+        Gauge.builder("pedidos.admissao.em-execucao", limitador, LimitadorConcorrencia::emExecucao).register(meterRegistry);
+        Gauge.builder("pedidos.admissao.fila", limitador, LimitadorConcorrencia::aguardando).register(meterRegistry);
+        FunctionCounter.builder("pedidos.admissao.rejeitados", limitador, LimitadorConcorrencia::rejeitadas)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Submete o pedido para gravação.
+     * <p>
+     * O resultado é {@link ResultadoPedido#rejeitado} quando o pedido viola as validações e
+     * termina com {@link br.com.ccs.exceptions.SobrecargaException} quando não é admitido.
+     */
+    public CompletableFuture<ResultadoPedido> submeter(Pedido pedido) {
+        return limitador.executar(() -> {
+            try {
+                pedidoService.save(pedido);
+                return ResultadoPedido.gravado(pedido.getId());
+            } catch (PrecoVendaInvalidoException | LockModeException e) {
+                return ResultadoPedido.rejeitado(pedido.getId(), e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Falhas de lock e de obtenção de conexão indicam que há mais pedidos concorrendo do que o
+     * banco absorve; as demais falhas não dizem nada sobre a carga.
+     */
+    private static boolean indicaSobrecarga(RuntimeException e) {
+        return e instanceof RepositoryException
+                || e instanceof PessimisticLockingFailureException
+                || e instanceof CannotCreateTransactionException
+                || e instanceof TransientDataAccessResourceException;
+    }
+
+    private static int tamanhoPool(DataSource dataSource) {
+        try {
+            return dataSource.unwrap(HikariConfigMXBean.class).getMaximumPoolSize();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Informe app.pedidos.admissao.limite-maximo: o pool de conexões não é do Hikari", e);
+        }
+    }
+
+    @PreDestroy
+    void encerrar() {
+        executor.shutdownNow();
+    }
+}
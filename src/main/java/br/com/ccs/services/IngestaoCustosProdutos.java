@@ -0,0 +1,300 @@
+package br.com.ccs.services;
+
+import br.com.ccs.config.IngestaoCustosProperties;
+import br.com.ccs.exceptions.RepositoryException;
+import br.com.ccs.exceptions.SobrecargaException;
+import br.com.ccs.locks.OrdemCanonicaIds;
+import br.com.ccs.services.dto.AtualizacaoCusto;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Recebe os valores de compra enviados pelos fornecedores e os grava em segundo plano, a
+ * cada {@link IngestaoCustosProperties#getJanela() janela}.
+ * <p>
+ * A fila guarda só o valor mais recente de cada produto: atualizações repetidas dentro da
+ * mesma janela são combinadas e apenas a última é gravada. As aplicações são serializadas,
+ * em lotes ordenados por ID, e um produto bloqueado por um pedido em andamento volta para a
+ * fila sem sobrescrever um valor mais novo que tenha chegado nesse meio tempo; assim, a
+ * última atualização enfileirada é sempre a que prevalece.
+ * <p>
+ * Um lote que falha por um erro transitório volta para a fila, e cada produto tolera até
+ * {@link IngestaoCustosProperties#getTentativasMaximas()} dessas falhas antes de ter o valor
+ * descartado. Qualquer outro erro é isolado dividindo o lote ao meio até restar o produto
+ * que o provoca, cujo valor é descartado sem atrasar os demais.
+ * <p>
+ * Os produtos em aplicação continuam ocupando espaço na fila até serem gravados, adiados ou
+ * descartados. Com a fila cheia, quem enfileira um produto que ainda não está nela antecipa a
+ * próxima aplicação e espera por espaço até o {@link IngestaoCustosProperties#getTempoMaximoEspera()
+ * tempo máximo}, sendo rejeitado com {@link SobrecargaException} depois dele.
+ */
+@Component
+@Slf4j
+public class IngestaoCustosProdutos {
+
+    private final ProdutoService produtoService;
+    private final IngestaoCustosProperties properties;
+    private final ScheduledExecutorService agendador;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition espacoLivre = lock.newCondition();
+    private final ReentrantLock aplicacao = new ReentrantLock();
+    private final AtomicBoolean descargaAntecipada = new AtomicBoolean();
+    private final AtomicLong aplicados = new AtomicLong();
+    private final AtomicLong coalescidos = new AtomicLong();
+    private final AtomicLong adiados = new AtomicLong();
+    private final AtomicLong rejeitados = new AtomicLong();
+    private final AtomicLong descartados = new AtomicLong();
+    private Map<UUID, Pendente> pendentes = new HashMap<>();
+    private int emAplicacao;
+
+    public IngestaoCustosProdutos(ProdutoService produtoService, IngestaoCustosProperties properties,
+                                  MeterRegistry meterRegistry) {
+        this.produtoService = produtoService;
+        this.properties = properties;
+        this.agendador = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("ingestao-custos").daemon().factory());
+
+        var janela = properties.getJanela().toMillis();
+        agendador.scheduleWithFixedDelay(this::descarregarAgendado, janela, janela, TimeUnit.MILLISECONDS);
+
+        Gauge.builder("produtos.custos.pendentes", this, IngestaoCustosProdutos::pendentes).register(meterRegistry);
+        FunctionCounter.builder("produtos.custos.aplicados", aplicados, AtomicLong::get).register(meterRegistry);
+        FunctionCounter.builder("produtos.custos.coalescidos", coalescidos, AtomicLong::get).register(meterRegistry);
+        FunctionCounter.builder("produtos.custos.adiados", adiados, AtomicLong::get).register(meterRegistry);
+        FunctionCounter.builder("produtos.custos.rejeitados", rejeitados, AtomicLong::get).register(meterRegistry);
+        FunctionCounter.builder("produtos.custos.descartados", descartados, AtomicLong::get).register(meterRegistry);
+    }
+
+    public void enfileirar(Map<UUID, BigDecimal> valoresCompra) {
+        valoresCompra.forEach(this::enfileirar);
+    }
+
+    public void enfileirar(Stream<AtualizacaoCusto> atualizacoes) {
+        atualizacoes.forEachOrdered(atualizacao -> enfileirar(atualizacao.produtoId(), atualizacao.valorCompra()));
+    }
+
+    public void enfileirar(UUID produtoId, BigDecimal valorCompra) {
+        Objects.requireNonNull(produtoId, "produtoId");
+        Objects.requireNonNull(valorCompra, "valorCompra");
+        var espera = properties.getTempoMaximoEspera().toNanos();
+
+        lock.lock();
+        try {
+            while (!pendentes.containsKey(produtoId) && pendentes.size() + emAplicacao >= properties.getCapacidade()) {
+                antecipar();
+                if (espera <= 0) {
+                    rejeitados.incrementAndGet();
+                    throw new SobrecargaException("Fila de custos cheia: " + properties.getCapacidade()
+                            + " produtos aguardando");
+                }
+                espera = espacoLivre.awaitNanos(espera);
+            }
+            if (pendentes.put(produtoId, new Pendente(valorCompra, 0)) != null) {
+                coalescidos.incrementAndGet();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            rejeitados.incrementAndGet();
+            throw new SobrecargaException("Interrompido aguardando espaço na fila de custos");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Produtos aguardando na fila, incluindo os que estão sendo aplicados.
+     */
+    public int pendentes() {
+        lock.lock();
+        try {
+            return pendentes.size() + emAplicacao;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Grava tudo o que está na fila, em lotes ordenados por ID de até
+     * {@link IngestaoCustosProperties#getTamanhoLote()} produtos, cada um na sua transação.
+     * <p>
+     * Produtos bloqueados, e os lotes com falha transitória, voltam para a fila; produtos
+     * inexistentes, e os que esgotaram as tentativas ou provocam outro erro, são descartados.
+     *
+     * @return quantidade de produtos atualizados
+     */
+    public int descarregar() {
+        aplicacao.lock();
+        try {
+            var lote = retirarPendentes();
+            if (lote.isEmpty()) {
+                return 0;
+            }
+
+            var atualizados = 0;
+            for (var inicio = 0; inicio < lote.size(); inicio += properties.getTamanhoLote()) {
+                atualizados += aplicar(lote.subList(inicio, Math.min(inicio + properties.getTamanhoLote(), lote.size())));
+            }
+
+            log.info("\n{} de {} valores de compra aplicados, {} ainda pendentes", atualizados, lote.size(), pendentes());
+            return atualizados;
+        } finally {
+            aplicacao.unlock();
+        }
+    }
+
+    private List<Map.Entry<UUID, Pendente>> retirarPendentes() {
+        List<Map.Entry<UUID, Pendente>> lote;
+        lock.lock();
+        try {
+            lote = new ArrayList<>(pendentes.entrySet());
+            emAplicacao += lote.size();
+            pendentes = new HashMap<>();
+        } finally {
+            lock.unlock();
+        }
+        lote.sort(Map.Entry.comparingByKey(OrdemCanonicaIds.COMPARADOR));
+        return lote;
+    }
+
+    /**
+     * Aplica uma parte do lote e, aconteça o que acontecer, libera o espaço que ela ocupava
+     * na fila, devolvendo os produtos adiados.
+     */
+    private int aplicar(List<Map.Entry<UUID, Pendente>> parte) {
+        var devolvidos = new HashMap<UUID, Pendente>();
+        try {
+            return aplicar(parte, devolvidos);
+        } finally {
+            concluir(parte.size(), devolvidos);
+        }
+    }
+
+    private int aplicar(List<Map.Entry<UUID, Pendente>> parte, Map<UUID, Pendente> devolvidos) {
+        try {
+            var valoresCompra = new HashMap<UUID, BigDecimal>(parte.size());
+            parte.forEach(entrada -> valoresCompra.put(entrada.getKey(), entrada.getValue().valorCompra()));
+            var resultado = produtoService.atualizarValoresCompraDisponiveis(valoresCompra);
+            aplicados.addAndGet(resultado.atualizados());
+
+            if (!resultado.bloqueados().isEmpty()) {
+                var bloqueados = Set.copyOf(resultado.bloqueados());
+                parte.stream()
+                        .filter(entrada -> bloqueados.contains(entrada.getKey()))
+                        .forEach(entrada -> adiar(entrada.getKey(), entrada.getValue(), devolvidos));
+            }
+            if (!resultado.inexistentes().isEmpty()) {
+                log.warn("\nValores de compra descartados para produtos inexistentes: {}", resultado.inexistentes());
+            }
+            return resultado.atualizados();
+        } catch (RuntimeException e) {
+            if (transitoria(e)) {
+                log.warn("\nFalha transitória ao aplicar {} valores de compra, que voltam para a fila", parte.size(), e);
+                parte.forEach(entrada -> reenfileirarAposFalha(entrada, devolvidos, e));
+                return 0;
+            }
+            if (parte.size() > 1) {
+                var meio = parte.size() / 2;
+                return aplicar(parte.subList(0, meio), devolvidos) + aplicar(parte.subList(meio, parte.size()), devolvidos);
+            }
+            descartar(parte.getFirst(), e);
+            return 0;
+        }
+    }
+
+    private void adiar(UUID produtoId, Pendente pendente, Map<UUID, Pendente> devolvidos) {
+        devolvidos.put(produtoId, pendente);
+        adiados.incrementAndGet();
+    }
+
+    private void reenfileirarAposFalha(Map.Entry<UUID, Pendente> entrada, Map<UUID, Pendente> devolvidos, RuntimeException e) {
+        var tentativas = entrada.getValue().tentativas() + 1;
+        if (tentativas >= properties.getTentativasMaximas()) {
+            descartar(entrada, e);
+            return;
+        }
+        adiar(entrada.getKey(), new Pendente(entrada.getValue().valorCompra(), tentativas), devolvidos);
+    }
+
+    private void descartar(Map.Entry<UUID, Pendente> entrada, RuntimeException e) {
+        descartados.incrementAndGet();
+        log.error("\nValor de compra {} do produto {} descartado após {} tentativas: {}", entrada.getValue().valorCompra(),
+                entrada.getKey(), entrada.getValue().tentativas() + 1, e.getMessage());
+    }
+
+    /**
+     * Devolve os adiados à fila sem sobrescrever os valores que chegaram depois deles, o que
+     * nunca ultrapassa a capacidade: cada adiado ocupa o espaço que já era seu na aplicação.
+     */
+    private void concluir(int quantidade, Map<UUID, Pendente> devolvidos) {
+        lock.lock();
+        try {
+            emAplicacao -= quantidade;
+            devolvidos.forEach(pendentes::putIfAbsent);
+            espacoLivre.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Falhas que podem não se repetir em uma nova aplicação: locks, timeouts e conexões.
+     */
+    private static boolean transitoria(RuntimeException e) {
+        return e instanceof TransientDataAccessException
+                || e instanceof RecoverableDataAccessException
+                || e instanceof CannotCreateTransactionException
+                || e instanceof RepositoryException;
+    }
+
+    private void antecipar() {
+        if (descargaAntecipada.compareAndSet(false, true)) {
+            agendador.execute(this::descarregarAgendado);
+        }
+    }
+
+    private void descarregarAgendado() {
+        descargaAntecipada.set(false);
+        try {
+            descarregar();
+        } catch (RuntimeException e) {
+            log.error("\nFalha ao descarregar a fila de custos", e);
+        }
+    }
+
+    @PreDestroy
+    void encerrar() throws InterruptedException {
+        agendador.shutdown();
+        agendador.awaitTermination(properties.getTempoMaximoEspera().toMillis(), TimeUnit.MILLISECONDS);
+        descarregarAgendado();
+        if (pendentes() > 0) {
+            log.warn("\n{} valores de compra não foram aplicados no encerramento", pendentes());
+        }
+    }
+
+    private record Pendente(BigDecimal valorCompra, int tentativas) {
+    }
+}
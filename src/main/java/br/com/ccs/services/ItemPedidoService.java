@@ -2,22 +2,62 @@ package br.com.ccs.services;
 
 import br.com.ccs.validators.PrecoMinimoVendaValidator;
 import br.com.ccs.entities.ItemPedido;
+import br.com.ccs.entities.Pedido;
 import br.com.ccs.entities.Produto;
+import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
 public class ItemPedidoService {
 
     private final PrecoMinimoVendaValidator precoMinimoVendaValidator;
+    private final ProdutoService produtoService;
+
+    /**
+     * Monta os itens de um pedido a partir dos IDs dos produtos e das quantidades, lendo só o
+     * nome e o valor de venda de cada produto, que podem vir do cache de segundo nível.
+     */
+    public List<ItemPedido> criarItens(Pedido pedido, Map<UUID, Integer> quantidades) {
+        var resumos = produtoService.findResumosByIdIn(quantidades.keySet());
+        return quantidades.entrySet().stream()
+                .map(quantidade -> {
+                    var resumo = resumos.get(quantidade.getKey());
+                    if (Objects.isNull(resumo)) {
+                        throw new EntityNotFoundException("Produto não encontrado: " + quantidade.getKey());
+                    }
+                    var item = ItemPedido.builder()
+                            .pedido(pedido)
+                            .quantidade(quantidade.getValue())
+                            .build();
+                    item.setProduto(Produto.referencia(resumo));
+                    return item;
+                })
+                .toList();
+    }
+
+    public void prevalidarItensPedido(List<ItemPedido> itens) {
+        precoMinimoVendaValidator.prevalidarValorMinimoVenda(toListProdutos(itens));
+    }
 
     public void validarItensPedido(List<ItemPedido> itens) {
         precoMinimoVendaValidator.validarValorMinimoVenda(toListProdutos(itens));
     }
 
+    public Map<UUID, Produto> bloquearProdutos(List<ItemPedido> itens) {
+        return precoMinimoVendaValidator.bloquearProdutos(toListProdutos(itens));
+    }
+
+    public void validarItensPedido(List<ItemPedido> itens, Map<UUID, Produto> produtosLock) {
+        precoMinimoVendaValidator.validarValorMinimoVenda(toListProdutos(itens), produtosLock);
+    }
+
     private static List<Produto> toListProdutos(List<ItemPedido> itens) {
         return itens.stream()
                 .map(ItemPedido::getProduto)
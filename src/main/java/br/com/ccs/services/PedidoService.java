@@ -1,20 +1,209 @@
 package br.com.ccs.services;
 
+import br.com.ccs.config.ExportacaoPedidosProperties;
 import br.com.ccs.entities.Pedido;
+import br.com.ccs.exceptions.LockModeException;
+import br.com.ccs.exceptions.PrecoVendaInvalidoException;
+import br.com.ccs.leitura.LeituraReplica;
+import br.com.ccs.locks.CoordenadorLocksProdutos;
+import br.com.ccs.locks.RetryLockOtimista;
 import br.com.ccs.repositories.PedidoRepository;
+import br.com.ccs.services.dto.ResultadoPedido;
+import br.com.ccs.services.exportacao.SinkExportacaoPedidos;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class PedidoService {
+    private static final Sort ORDEM_PADRAO = Sort.by("id");
     private final PedidoRepository pedidoRepository;
     private final ItemPedidoService itemPedidoService;
+    private final TransactionTemplate transactionTemplate;
+    private final RetryLockOtimista retryLockOtimista;
+    private final CoordenadorLocksProdutos coordenadorLocksProdutos;
+    private final ExportacaoPedidosProperties exportacaoProperties;
+    private final LeituraReplica leituraReplica;
 
-    @Transactional
+    /**
+     * A transação é aberta aqui, dentro do retry, e não por {@code @Transactional}:
+     * no lock otimista o conflito de versão só aparece no commit, e cada nova
+     * tentativa precisa revalidar os itens em uma transação nova.
+     * <p>
+     * Os locks locais do {@link CoordenadorLocksProdutos} vêm antes de tudo, para que a
+     * espera por eles não segure uma conexão do pool. Antes deles, só a pré-validação sem
+     * lock, que rejeita o pedido abaixo da margem mínima sem bloquear nenhum produto.
+     */
     void save(Pedido pedido) {
-        itemPedidoService.validarItensPedido(pedido.getItens());
-        pedidoRepository.save(pedido);
+        itemPedidoService.prevalidarItensPedido(pedido.getItens());
+        coordenadorLocksProdutos.executar(idsProdutos(List.of(pedido)), () ->
+                retryLockOtimista.executar(() -> transactionTemplate.executeWithoutResult(status -> {
+                    itemPedidoService.validarItensPedido(pedido.getItens());
+                    pedidoRepository.save(pedido);
+                })));
+    }
+
+    /**
+     * Grava vários pedidos em uma única transação, bloqueando uma única vez a união
+     * dos seus produtos.
+     * <p>
+     * Cada pedido é validado isoladamente: os que violam o valor mínimo de venda são
+     * rejeitados no resultado sem impedir a gravação dos demais. Falhas de lock ou de
+     * persistência continuam afetando o grupo inteiro, que é desfeito.
+     * <p>
+     * Os pedidos rejeitados pela pré-validação, que não usa lock, ficam fora do grupo e não
+     * bloqueiam os seus produtos.
+     */
+    public List<ResultadoPedido> saveAll(List<Pedido> pedidos) {
+        pedidos.forEach(Pedido::gerarIdSeAusente);
+        var rejeitados = prevalidar(pedidos);
+        var aprovados = pedidos.stream()
+                .filter(pedido -> !rejeitados.containsKey(pedido))
+                .toList();
+
+        var resultadosAprovados = aprovados.isEmpty()
+                ? List.<ResultadoPedido>of()
+                : coordenadorLocksProdutos.executar(idsProdutos(aprovados), () ->
+                        retryLockOtimista.executar(() -> transactionTemplate.execute(status -> salvarEmGrupo(aprovados))));
+
+        var proximoAprovado = resultadosAprovados.iterator();
+        return pedidos.stream()
+                .map(pedido -> rejeitados.containsKey(pedido) ? rejeitados.get(pedido) : proximoAprovado.next())
+                .toList();
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<Pedido> findComItensById(UUID id) {
+        return pedidoRepository.findComItensById(id);
+    }
+
+    /**
+     * Pagina primeiro apenas os ids e depois busca, em uma única consulta, os pedidos da
+     * página com seus itens e produtos, mantendo a ordem definida por {@code pageable}, ou a
+     * do id quando ela não é informada, para que as páginas sejam estáveis.
+     * <p>
+     * Um pedido excluído entre as duas consultas é omitido da página, em vez de aparecer nela
+     * como {@code null}. A listagem tolera o atraso da réplica e é lida nela quando habilitada.
+     */
+    public Page<Pedido> findAllComItens(Pageable pageable) {
+        var paginacao = ordenarPeloIdSeNaoOrdenado(pageable);
+        return leituraReplica.executar(() -> {
+            var ids = pedidoRepository.findIds(paginacao);
+            if (!ids.hasContent()) {
+                return new PageImpl<>(List.of(), paginacao, ids.getTotalElements());
+            }
+
+            var pedidos = pedidoRepository.findComItensByIdIn(ids.getContent()).stream()
+                    .collect(Collectors.toMap(Pedido::getId, Function.identity()));
+            return new PageImpl<>(ids.stream()
+                    .map(pedidos::get)
+                    .filter(Objects::nonNull)
+                    .toList(), paginacao, ids.getTotalElements());
+        });
+    }
+
+    private static Pageable ordenarPeloIdSeNaoOrdenado(Pageable pageable) {
+        if (pageable.getSort().isSorted()) {
+            return pageable;
+        }
+        return pageable.isPaged()
+                ? PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), ORDEM_PADRAO)
+                : Pageable.unpaged(ORDEM_PADRAO);
+    }
+
+    /**
+     * Exporta todos os itens de pedido para o {@code sink}, linha a linha e ordenados pelo
+     * pedido, com memória constante independentemente da quantidade de pedidos, lendo da
+     * réplica quando habilitada. Pedidos sem itens também são exportados, em uma linha sem item.
+     *
+     * @return a quantidade de linhas exportadas
+     */
+    public long exportar(SinkExportacaoPedidos sink) {
+        return leituraReplica.executar(() -> {
+            log.info("\nIniciando exportação dos pedidos");
+            try {
+                sink.iniciar();
+                var linhas = pedidoRepository.exportarItens(exportacaoProperties.getFetchSize(), linha -> {
+                    try {
+                        sink.escrever(linha);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                sink.finalizar();
+                log.info("\nExportação dos pedidos concluída: {} linhas", linhas);
+                return linhas;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private List<ResultadoPedido> salvarEmGrupo(List<Pedido> pedidos) {
+        log.info("\nGravando grupo de {} pedidos", pedidos.size());
+        var produtosLock = itemPedidoService.bloquearProdutos(pedidos.stream()
+                .flatMap(pedido -> pedido.getItens().stream())
+                .toList());
+
+        var resultados = new ArrayList<ResultadoPedido>(pedidos.size());
+        var pedidosValidos = new ArrayList<Pedido>(pedidos.size());
+
+        for (var pedido : pedidos) {
+            try {
+                itemPedidoService.validarItensPedido(pedido.getItens(), produtosLock);
+                pedidosValidos.add(pedido);
+                resultados.add(ResultadoPedido.gravado(pedido.getId()));
+            } catch (PrecoVendaInvalidoException | LockModeException e) {
+                resultados.add(ResultadoPedido.rejeitado(pedido.getId(), e.getMessage()));
+            }
+        }
+
+        pedidoRepository.saveAll(pedidosValidos);
+        log.info("\n{} de {} pedidos do grupo gravados", pedidosValidos.size(), pedidos.size());
+
+        return resultados;
+    }
+
+    private Map<Pedido, ResultadoPedido> prevalidar(List<Pedido> pedidos) {
+        var rejeitados = new IdentityHashMap<Pedido, ResultadoPedido>();
+        for (var pedido : pedidos) {
+            try {
+                itemPedidoService.prevalidarItensPedido(pedido.getItens());
+            } catch (PrecoVendaInvalidoException e) {
+                rejeitados.put(pedido, ResultadoPedido.rejeitado(pedido.getId(), e.getMessage()));
+            }
+        }
+        if (!rejeitados.isEmpty()) {
+            log.info("\n{} de {} pedidos rejeitados na pré-validação", rejeitados.size(), pedidos.size());
+        }
+        return rejeitados;
+    }
+
+    private static List<UUID> idsProdutos(List<Pedido> pedidos) {
+        return pedidos.stream()
+                .flatMap(pedido -> pedido.getItens().stream())
+                .map(item -> item.getProduto().getId())
+                .toList();
     }
 }
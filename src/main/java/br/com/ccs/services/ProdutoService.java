@@ -1,47 +1,334 @@
 package br.com.ccs.services;
 
+import br.com.ccs.cache.SnapshotCustoProdutos;
+import br.com.ccs.config.AtualizacaoProdutosProperties;
+import br.com.ccs.config.LockProperties;
 import br.com.ccs.entities.Produto;
+import br.com.ccs.entities.ResumoProduto;
+import br.com.ccs.exceptions.AtualizacaoLoteException;
 import br.com.ccs.exceptions.RepositoryException;
+import br.com.ccs.leitura.LeituraReplica;
+import br.com.ccs.locks.CoordenadorLocksProdutos;
+import br.com.ccs.locks.DiagnosticoLocks;
+import br.com.ccs.locks.EstrategiaLock;
+import br.com.ccs.locks.OrdemCanonicaIds;
+import br.com.ccs.metrics.LockMetrics;
 import br.com.ccs.repositories.ProdutoRepository;
+import br.com.ccs.repositories.projections.CustoProduto;
+import br.com.ccs.services.dto.ProgressoAtualizacao;
+import br.com.ccs.services.dto.ResultadoAplicacaoCustos;
+import jakarta.persistence.LockModeType;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.dao.CannotAcquireLockException;
+import org.hibernate.LockOptions;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class ProdutoService {
     private final ProdutoRepository produtoRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final AtualizacaoProdutosProperties atualizacaoProperties;
+    private final LockProperties lockProperties;
+    private final LockMetrics lockMetrics;
+    private final SnapshotCustoProdutos snapshotCustoProdutos;
+    private final CoordenadorLocksProdutos coordenadorLocksProdutos;
+    private final DiagnosticoLocks diagnosticoLocks;
 
+    /**
+     * Busca os produtos com o lock da {@link EstrategiaLock} configurada. O {@code readOnly}
+     * apenas dispensa o flush da sessão: a consulta bloqueia linhas e por isso nunca é roteada
+     * para a réplica de leitura.
+     * <p>
+     * Com a pré-validação ligada, os custos lidos alimentam o snapshot em memória, de onde a
+     * pré-validação dos próximos pedidos os consulta sem ir ao banco.
+     */
     @Transactional(readOnly = true)
     public List<Produto> findByIdIn(List<UUID> ids) {
+        LeituraReplica.exigirPrincipal("A busca de produtos por IDs");
         log.info("\nBuscando Produtos por IDs");
         try {
-            var produtos = produtoRepository.findByIdIn(ids);
+            var estrategia = lockProperties.getEstrategia();
+            var geracao = snapshotCustoProdutos.geracao();
+            var produtos = lockMetrics.registrarEspera(estrategia.name(), () -> produtoRepository.findByIdIn(
+                    OrdemCanonicaIds.ordenar(ids), estrategia.getLockModeType(), timeoutLock(estrategia)));
+            lockMetrics.registrarRetencaoAteFimTransacao(estrategia.name());
             log.info("\nProdutos encontrados por IDs agora estão lockados");
 
+            if (lockProperties.isPreValidacao()) {
+                snapshotCustoProdutos.armazenar(produtos.stream()
+                        .map(produto -> new CustoProduto(produto.getId(), produto.getValorCompra(), produto.getVersao()))
+                        .toList(), geracao);
+            }
+
             return produtos;
 
-        } catch (CannotAcquireLockException e) {
+        } catch (PessimisticLockingFailureException e) {
+            lockMetrics.registrarExcecao(e.getClass());
+            diagnosticoLocks.registrarFalha(e);
             throw new RepositoryException("Erro ao buscar produtos por IDs", e);
         }
     }
 
-    @Transactional
+    /**
+     * Bloqueia, sem esperar, apenas os produtos que não estão bloqueados por outra transação,
+     * ignorando os demais ({@code SKIP LOCKED}).
+     * <p>
+     * Destinado a jobs em segundo plano, que podem tratar os produtos ignorados em uma
+     * próxima rodada; os locks valem até o fim da transação de quem chama.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public List<Produto> findDisponiveisByIdIn(List<UUID> ids) {
+        LeituraReplica.exigirPrincipal("A busca de produtos disponíveis");
+        var produtos = lockMetrics.registrarEspera("SKIP_LOCKED", () -> produtoRepository.findByIdIn(
+                OrdemCanonicaIds.ordenar(ids), LockModeType.PESSIMISTIC_WRITE, LockOptions.SKIP_LOCKED));
+        lockMetrics.registrarRetencaoAteFimTransacao("SKIP_LOCKED");
+        log.info("\n{} de {} produtos disponíveis foram bloqueados", produtos.size(), ids.size());
+
+        return produtos;
+    }
+
+    private int timeoutLock(EstrategiaLock estrategia) {
+        return estrategia.usaTimeoutConfigurado()
+                ? Math.toIntExact(lockProperties.getTimeoutLock().toMillis())
+                : estrategia.getTimeoutLock();
+    }
+
+    /**
+     * Busca o valor de compra e a versão dos produtos no snapshot em memória, lendo do banco,
+     * sem lock, apenas os ausentes.
+     * <p>
+     * As versões devolvidas são conferidas no banco antes do commit da transação corrente; se
+     * algum produto tiver sido alterado, ele é removido do snapshot e o commit falha com
+     * {@link ObjectOptimisticLockingFailureException}, para que a operação seja repetida.
+     */
+    @Transactional(readOnly = true)
+    public List<Produto> findCustosByIdIn(List<UUID> ids) {
+        var custos = buscarCustos(ids);
+        conferirVersoesNoCommit(custos);
+
+        return custos.values().stream()
+                .map(custo -> Produto.builder()
+                        .id(custo.id())
+                        .valorCompra(custo.valorCompra())
+                        .versao(custo.versao())
+                        .build())
+                .toList();
+    }
+
+    /**
+     * Como {@link #findCustosByIdIn(List)}, mas sem conferir as versões no commit: para a
+     * pré-validação, que só rejeita pedidos e não grava nada com os custos lidos.
+     */
+    @Transactional(readOnly = true)
+    public Map<UUID, CustoProduto> findCustosPreValidacaoByIdIn(List<UUID> ids) {
+        return buscarCustos(ids);
+    }
+
+    private Map<UUID, CustoProduto> buscarCustos(List<UUID> ids) {
+        var geracao = snapshotCustoProdutos.geracao();
+        var custos = snapshotCustoProdutos.buscar(ids);
+
+        var ausentes = ids.stream()
+                .filter(id -> !custos.containsKey(id))
+                .distinct()
+                .toList();
+        if (!ausentes.isEmpty()) {
+            var lidos = produtoRepository.findCustosByIdIn(ausentes);
+            snapshotCustoProdutos.armazenar(lidos, geracao);
+            lidos.forEach(custo -> custos.put(custo.id(), custo));
+        }
+        return custos;
+    }
+
+    /**
+     * Nome e valor de venda dos produtos, por ID, sem lock e passando pelo cache de segundo
+     * nível quando habilitado; os IDs inexistentes não aparecem no mapa.
+     */
+    @Transactional(readOnly = true)
+    public Map<UUID, ResumoProduto> findResumosByIdIn(Collection<UUID> ids) {
+        return produtoRepository.findResumosByIdIn(ids).stream()
+                .collect(Collectors.toMap(ResumoProduto::getId, Function.identity()));
+    }
+
+    private void conferirVersoesNoCommit(Map<UUID, CustoProduto> custosLidos) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                var divergentes = produtoRepository.findCustosByIdIn(custosLidos.keySet()).stream()
+                        .filter(atual -> !Objects.equals(atual.versao(), custosLidos.get(atual.id()).versao()))
+                        .map(CustoProduto::id)
+                        .toList();
+
+                if (!divergentes.isEmpty()) {
+                    log.info("\nVersão divergente do snapshot para {} produtos", divergentes.size());
+                    snapshotCustoProdutos.invalidar(divergentes);
+                    throw new ObjectOptimisticLockingFailureException(Produto.class, divergentes.getFirst());
+                }
+            }
+        });
+    }
+
+    /**
+     * Atualiza todo o catálogo em uma única transação, aberta só depois de obtidos todos os
+     * locks locais do {@link CoordenadorLocksProdutos}, quando habilitado.
+     */
     public void atualizarValorCompraProdutos(BigDecimal novoValorCompra) {
-        log.info("\nIniciando Atualização do valor de compra dos produtos");
-        var produtos = produtoRepository.findAll();
-        produtos.forEach(produto -> {
-            produto.setValorCompra(novoValorCompra);
-            produtoRepository.saveAndFlush(produto);
-            log.info("\nAtualizado valor de compra do produto: {} - {} - {}",
-                    produto.getNome(), produto.getDataHoraCriacao(), produto.getDataHoraAlteracao());
+        coordenadorLocksProdutos.executarComTodas(() -> transactionTemplate.executeWithoutResult(status -> {
+            log.info("\nIniciando Atualização do valor de compra dos produtos");
+            invalidarSnapshotAposCommit(snapshotCustoProdutos::invalidarTodos);
+            var produtos = produtoRepository.findByOrderByIdAsc(Limit.unlimited());
+            produtos.forEach(produto -> {
+                produto.setValorCompra(novoValorCompra);
+                lockMetrics.registrarFlush("linha", () -> produtoRepository.saveAndFlush(produto));
+                log.info("\nAtualizado valor de compra do produto: {} - {} - {}",
+                        produto.getNome(), produto.getDataHoraCriacao(), produto.getDataHoraAlteracao());
+            });
+        }));
+    }
+
+    /**
+     * Grava, em uma única transação, os valores de compra dos produtos que não estão bloqueados
+     * por outra transação ({@code SKIP LOCKED}), sem esperar pelos demais: quem segura o lock
+     * de um produto é um pedido em validação, que não deve ser atrasado por uma atualização de
+     * custo que pode ser refeita em seguida.
+     * <p>
+     * Pelo mesmo motivo, as listras do {@link CoordenadorLocksProdutos} também não são
+     * esperadas: os produtos cujas listras estão ocupadas voltam como bloqueados, sem abrir
+     * transação para eles.
+     * <p>
+     * Os produtos são bloqueados e atualizados em ordem de ID, e os UPDATEs vão em lotes JDBC.
+     */
+    public ResultadoAplicacaoCustos atualizarValoresCompraDisponiveis(Map<UUID, BigDecimal> valoresCompra) {
+        var ids = OrdemCanonicaIds.ordenar(List.copyOf(valoresCompra.keySet()));
+        return coordenadorLocksProdutos.executarComDisponiveis(ids, livres -> {
+            var ocupados = ids.stream()
+                    .filter(Predicate.not(Set.copyOf(livres)::contains))
+                    .toList();
+            if (livres.isEmpty()) {
+                return new ResultadoAplicacaoCustos(0, ocupados, List.of());
+            }
+
+            var resultado = transactionTemplate.execute(status -> aplicarValoresCompra(livres, valoresCompra));
+            if (ocupados.isEmpty()) {
+                return resultado;
+            }
+            var bloqueados = Stream.concat(resultado.bloqueados().stream(), ocupados.stream()).toList();
+            return new ResultadoAplicacaoCustos(resultado.atualizados(), bloqueados, resultado.inexistentes());
+        });
+    }
+
+    private ResultadoAplicacaoCustos aplicarValoresCompra(List<UUID> ids, Map<UUID, BigDecimal> valoresCompra) {
+        var produtos = findDisponiveisByIdIn(ids);
+        produtos.forEach(produto -> produto.setValorCompra(valoresCompra.get(produto.getId())));
+        lockMetrics.registrarFlush("ingestao", produtoRepository::flush);
+
+        var atualizados = produtos.stream().map(Produto::getId).toList();
+        invalidarSnapshotAposCommit(() -> snapshotCustoProdutos.invalidar(atualizados));
+
+        var restantes = ids.stream()
+                .filter(Predicate.not(Set.copyOf(atualizados)::contains))
+                .toList();
+        var bloqueados = restantes.isEmpty()
+                ? List.<UUID>of()
+                : produtoRepository.findCustosByIdIn(restantes).stream().map(CustoProduto::id).toList();
+        var inexistentes = restantes.stream()
+                .filter(Predicate.not(Set.copyOf(bloqueados)::contains))
+                .toList();
+
+        return new ResultadoAplicacaoCustos(atualizados.size(), bloqueados, inexistentes);
+    }
+
+    public ProgressoAtualizacao atualizarValorCompraProdutosEmLotes(BigDecimal novoValorCompra) {
+        return atualizarValorCompraProdutosEmLotes(novoValorCompra, null, progresso -> {
+        });
+    }
+
+    /**
+     * Atualiza o valor de compra de todo o catálogo percorrendo os produtos por ID
+     * (paginação por chave) e confirmando uma transação por lote, de forma que os
+     * locks de cada lote são liberados antes do próximo lote ser bloqueado.
+     * <p>
+     * Os ids de um lote só são conhecidos dentro da transação, então cada lote segura todas as
+     * listras do {@link CoordenadorLocksProdutos}, quando habilitado, apenas enquanto dura a
+     * sua transação: os pedidos esperam por um lote, e não pela atualização inteira.
+     * <p>
+     * Em caso de falha é lançada uma {@link AtualizacaoLoteException} contendo o
+     * progresso do último lote confirmado; basta informar
+     * {@link ProgressoAtualizacao#ultimoIdAtualizado()} em {@code retomarAposId}
+     * para continuar de onde parou.
+     */
+    public ProgressoAtualizacao atualizarValorCompraProdutosEmLotes(BigDecimal novoValorCompra,
+                                                                   UUID retomarAposId,
+                                                                   Consumer<ProgressoAtualizacao> acompanhamento) {
+        log.info("\nIniciando Atualização em lotes do valor de compra dos produtos a partir do ID: {}", retomarAposId);
+        var limite = Limit.of(atualizacaoProperties.getTamanhoLote());
+        var progresso = ProgressoAtualizacao.inicial(retomarAposId);
+
+        while (true) {
+            var ultimoId = progresso.ultimoIdAtualizado();
+            List<Produto> lote;
+            try {
+                lote = coordenadorLocksProdutos.executarComTodas(() ->
+                        transactionTemplate.execute(status -> atualizarLote(novoValorCompra, ultimoId, limite)));
+            } catch (RuntimeException e) {
+                throw new AtualizacaoLoteException("Erro ao atualizar lote de produtos após o ID: " + ultimoId, progresso, e);
+            }
+
+            if (Objects.requireNonNull(lote).isEmpty()) {
+                break;
+            }
+
+            snapshotCustoProdutos.invalidar(lote.stream().map(Produto::getId).toList());
+            progresso = progresso.proximo(lote.size(), lote.getLast().getId());
+            log.info("\nLote {} confirmado, {} produtos atualizados até o ID: {}",
+                    progresso.lotesConfirmados(), progresso.produtosAtualizados(), progresso.ultimoIdAtualizado());
+            acompanhamento.accept(progresso);
+        }
+
+        log.info("\nAtualização em lotes concluída, {} produtos atualizados", progresso.produtosAtualizados());
+        return progresso;
+    }
+
+    private List<Produto> atualizarLote(BigDecimal novoValorCompra, UUID ultimoId, Limit limite) {
+        var lote = Objects.isNull(ultimoId)
+                ? produtoRepository.findByOrderByIdAsc(limite)
+                : produtoRepository.findByIdGreaterThanOrderByIdAsc(ultimoId, limite);
+
+        lote.forEach(produto -> produto.setValorCompra(novoValorCompra));
+        lockMetrics.registrarFlush("lote", produtoRepository::flush);
+
+        return lote;
+    }
+
+    private static void invalidarSnapshotAposCommit(Runnable invalidacao) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invalidacao.run();
+            }
         });
     }
 }
@@ -0,0 +1,98 @@
+package br.com.ccs.services;
+
+import br.com.ccs.config.LockProperties;
+import br.com.ccs.entities.Pedido;
+import br.com.ccs.exceptions.LockModeException;
+import br.com.ccs.exceptions.PrecoVendaInvalidoException;
+import br.com.ccs.exceptions.RepositoryException;
+import br.com.ccs.locks.BackoffExponencial;
+import br.com.ccs.metrics.LockMetrics;
+import br.com.ccs.services.dto.ResultadoPedido;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Grava pedidos de forma assíncrona, reenviando os que não conseguiram os locks dos
+ * produtos em vez de devolver o erro a quem submeteu.
+ * <p>
+ * Pensado para as estratégias que falham rápido ({@code PESSIMISTA_NOWAIT} e
+ * {@code PESSIMISTA_TIMEOUT}): cada falha de lock é reagendada com backoff exponencial
+ * com jitter até o prazo de {@link LockProperties.Reagendamento}, trocando latência do
+ * pedido por conexões que não ficam presas esperando lock no banco.
+ */
+@Component
+@Slf4j
+public class ReagendadorPedidos {
+
+    private final PedidoService pedidoService;
+    private final LockProperties.Reagendamento reagendamento;
+    private final LockMetrics lockMetrics;
+    private final ScheduledExecutorService agendador;
+    private final ExecutorService executor;
+
+    public ReagendadorPedidos(PedidoService pedidoService, LockProperties lockProperties, LockMetrics lockMetrics) {
+        this.pedidoService = pedidoService;
+        this.reagendamento = lockProperties.getReagendamento();
+        this.lockMetrics = lockMetrics;
+        this.agendador = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("reagendador-pedidos").daemon().factory());
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    /**
+     * Submete o pedido para gravação.
+     * <p>
+     * O resultado é {@link ResultadoPedido#rejeitado} quando o pedido viola as validações
+     * e termina com a última {@link RepositoryException} quando o prazo se esgota sem que
+     * os locks tenham sido obtidos.
+     */
+    public CompletableFuture<ResultadoPedido> submeter(Pedido pedido) {
+        var resultado = new CompletableFuture<ResultadoPedido>();
+        var prazo = System.nanoTime() + reagendamento.getPrazo().toNanos();
+        executor.execute(() -> tentar(pedido, 1, prazo, resultado));
+        return resultado;
+    }
+
+    private void tentar(Pedido pedido, int tentativa, long prazo, CompletableFuture<ResultadoPedido> resultado) {
+        try {
+            pedidoService.save(pedido);
+            resultado.complete(ResultadoPedido.gravado(pedido.getId()));
+        } catch (PrecoVendaInvalidoException | LockModeException e) {
+            resultado.complete(ResultadoPedido.rejeitado(pedido.getId(), e.getMessage()));
+        } catch (RepositoryException e) {
+            reagendar(pedido, tentativa, prazo, resultado, e);
+        } catch (RuntimeException e) {
+            resultado.completeExceptionally(e);
+        }
+    }
+
+    private void reagendar(Pedido pedido, int tentativa, long prazo,
+                           CompletableFuture<ResultadoPedido> resultado, RepositoryException falha) {
+        var espera = BackoffExponencial.esperaMillis(
+                tentativa, reagendamento.getBackoffInicial(), reagendamento.getBackoffMaximo());
+
+        if (System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(espera) - prazo > 0) {
+            log.warn("\nPrazo esgotado após {} tentativas de gravar o pedido: {}", tentativa, pedido.getId());
+            resultado.completeExceptionally(falha);
+            return;
+        }
+
+        log.info("\nLocks indisponíveis na tentativa {}, pedido {} reagendado em {}ms", tentativa, pedido.getId(), espera);
+        lockMetrics.registrarRetentativa(RepositoryException.class);
+        agendador.schedule(() -> executor.execute(() -> tentar(pedido, tentativa + 1, prazo, resultado)),
+                espera, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void encerrar() {
+        agendador.shutdownNow();
+        executor.shutdownNow();
+    }
+}
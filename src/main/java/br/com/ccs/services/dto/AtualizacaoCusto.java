@@ -0,0 +1,10 @@
+package br.com.ccs.services.dto;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Novo valor de compra de um produto, como enviado pelo fornecedor.
+ */
+public record AtualizacaoCusto(UUID produtoId, BigDecimal valorCompra) {
+}
@@ -0,0 +1,20 @@
+package br.com.ccs.services.dto;
+
+import java.util.UUID;
+
+/**
+ * Situação de uma atualização em lotes após o último lote confirmado.
+ * <p>
+ * {@code ultimoIdAtualizado} é o ponto de retomada: uma nova execução
+ * iniciada a partir dele continua exatamente do lote seguinte.
+ */
+public record ProgressoAtualizacao(long produtosAtualizados, long lotesConfirmados, UUID ultimoIdAtualizado) {
+
+    public static ProgressoAtualizacao inicial(UUID retomarAposId) {
+        return new ProgressoAtualizacao(0, 0, retomarAposId);
+    }
+
+    public ProgressoAtualizacao proximo(int produtosNoLote, UUID ultimoIdDoLote) {
+        return new ProgressoAtualizacao(produtosAtualizados + produtosNoLote, lotesConfirmados + 1, ultimoIdDoLote);
+    }
+}
@@ -0,0 +1,13 @@
+package br.com.ccs.services.dto;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Resultado da aplicação de um lote de valores de compra.
+ * <p>
+ * {@code bloqueados} existem mas estavam bloqueados por outra transação e não foram
+ * alterados; {@code inexistentes} não foram encontrados no catálogo.
+ */
+public record ResultadoAplicacaoCustos(int atualizados, List<UUID> bloqueados, List<UUID> inexistentes) {
+}
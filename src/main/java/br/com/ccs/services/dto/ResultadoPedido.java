@@ -0,0 +1,14 @@
+package br.com.ccs.services.dto;
+
+import java.util.UUID;
+
+public record ResultadoPedido(UUID pedidoId, boolean gravado, String motivoRejeicao) {
+
+    public static ResultadoPedido gravado(UUID pedidoId) {
+        return new ResultadoPedido(pedidoId, true, null);
+    }
+
+    public static ResultadoPedido rejeitado(UUID pedidoId, String motivoRejeicao) {
+        return new ResultadoPedido(pedidoId, false, motivoRejeicao);
+    }
+}
@@ -0,0 +1,65 @@
+package br.com.ccs.services.exportacao;
+
+import br.com.ccs.repositories.projections.LinhaExportacaoPedido;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+/**
+ * Escreve as linhas em CSV (RFC 4180), UTF-8, com cabeçalho.
+ */
+public class CsvSinkExportacaoPedidos implements SinkExportacaoPedidos {
+
+    private static final String CABECALHO = "pedido_id,item_id,produto_id,nome_produto,quantidade,valor_unitario";
+
+    private final Writer writer;
+
+    public CsvSinkExportacaoPedidos(OutputStream outputStream) {
+        this.writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void iniciar() throws IOException {
+        writer.write(CABECALHO);
+        writer.write("\r\n");
+    }
+
+    @Override
+    public void escrever(LinhaExportacaoPedido linha) throws IOException {
+        writer.write(Objects.toString(linha.pedidoId(), ""));
+        writer.write(',');
+        writer.write(Objects.toString(linha.itemId(), ""));
+        writer.write(',');
+        writer.write(Objects.toString(linha.produtoId(), ""));
+        writer.write(',');
+        escreverTexto(linha.nomeProduto());
+        writer.write(',');
+        writer.write(Objects.toString(linha.quantidade(), ""));
+        writer.write(',');
+        writer.write(Objects.isNull(linha.valorUnitario()) ? "" : linha.valorUnitario().toPlainString());
+        writer.write("\r\n");
+    }
+
+    @Override
+    public void finalizar() throws IOException {
+        writer.flush();
+    }
+
+    private void escreverTexto(String texto) throws IOException {
+        if (Objects.isNull(texto)) {
+            return;
+        }
+        if (texto.chars().noneMatch(c -> c == ',' || c == '"' || c == '\r' || c == '\n')) {
+            writer.write(texto);
+            return;
+        }
+        writer.write('"');
+        writer.write(texto.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
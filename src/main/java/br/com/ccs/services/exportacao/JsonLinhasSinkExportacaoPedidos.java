@@ -0,0 +1,72 @@
+package br.com.ccs.services.exportacao;
+
+import br.com.ccs.repositories.projections.LinhaExportacaoPedido;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+/**
+ * Escreve um objeto JSON por linha (JSON Lines), UTF-8.
+ */
+public class JsonLinhasSinkExportacaoPedidos implements SinkExportacaoPedidos {
+
+    private final Writer writer;
+
+    public JsonLinhasSinkExportacaoPedidos(OutputStream outputStream) {
+        this.writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void escrever(LinhaExportacaoPedido linha) throws IOException {
+        writer.write("{\"pedidoId\":");
+        escreverTexto(Objects.toString(linha.pedidoId(), null));
+        writer.write(",\"itemId\":");
+        escreverTexto(Objects.toString(linha.itemId(), null));
+        writer.write(",\"produtoId\":");
+        escreverTexto(Objects.toString(linha.produtoId(), null));
+        writer.write(",\"nomeProduto\":");
+        escreverTexto(linha.nomeProduto());
+        writer.write(",\"quantidade\":");
+        writer.write(Objects.toString(linha.quantidade()));
+        writer.write(",\"valorUnitario\":");
+        writer.write(Objects.isNull(linha.valorUnitario()) ? "null" : linha.valorUnitario().toPlainString());
+        writer.write("}\n");
+    }
+
+    @Override
+    public void finalizar() throws IOException {
+        writer.flush();
+    }
+
+    private void escreverTexto(String texto) throws IOException {
+        if (Objects.isNull(texto)) {
+            writer.write("null");
+            return;
+        }
+
+        writer.write('"');
+        for (var i = 0; i < texto.length(); i++) {
+            var c = texto.charAt(i);
+            switch (c) {
+                case '"' -> writer.write("\\\"");
+                case '\\' -> writer.write("\\\\");
+                case '\n' -> writer.write("\\n");
+                case '\r' -> writer.write("\\r");
+                case '\t' -> writer.write("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        writer.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        writer.write(c);
+                    }
+                }
+            }
+        }
+        writer.write('"');
+    }
+}
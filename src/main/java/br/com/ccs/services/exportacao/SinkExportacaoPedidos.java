@@ -0,0 +1,22 @@
+package br.com.ccs.services.exportacao;
+
+import br.com.ccs.repositories.projections.LinhaExportacaoPedido;
+
+import java.io.IOException;
+
+/**
+ * Destino das linhas exportadas por {@link br.com.ccs.services.PedidoService#exportar(SinkExportacaoPedidos)}.
+ * <p>
+ * As linhas chegam uma a uma, na ordem do cursor; a implementação não deve guardá-las.
+ * O sink não fecha o destino, que continua sendo de quem o criou.
+ */
+public interface SinkExportacaoPedidos {
+
+    default void iniciar() throws IOException {
+    }
+
+    void escrever(LinhaExportacaoPedido linha) throws IOException;
+
+    default void finalizar() throws IOException {
+    }
+}
@@ -0,0 +1,69 @@
+package br.com.ccs.validators;
+
+import java.math.BigDecimal;
+
+/**
+ * Regra da margem mínima de venda em aritmética de ponto fixo sobre {@code long}.
+ * <p>
+ * Os valores são convertidos para centavos apenas na entrada; a comparação em si não aloca.
+ * A margem de 150% é a razão exata 3/2, então o preço é válido quando
+ * {@code valorVenda * 2 >= valorCompra * 3}, sem divisão nem arredondamento.
+ * Valores que não cabem em centavos ou em um {@code long} caem na mesma conta em {@link BigDecimal};
+ * isso é decidido pela escala e pela precisão, antes da conversão, sem lançar exceções.
+ */
+final class MargemMinimaVenda {
+
+    static final int ESCALA = 2;
+    private static final long NUMERADOR_MARGEM = 3;
+    private static final long DENOMINADOR_MARGEM = 2;
+    private static final BigDecimal NUMERADOR_MARGEM_DECIMAL = BigDecimal.valueOf(NUMERADOR_MARGEM);
+    private static final BigDecimal DENOMINADOR_MARGEM_DECIMAL = BigDecimal.valueOf(DENOMINADOR_MARGEM);
+    /**
+     * Com até 18 dígitos o valor em centavos, mesmo multiplicado pelo numerador da margem,
+     * continua abaixo de {@link Long#MAX_VALUE}.
+     */
+    private static final int DIGITOS_MAXIMOS_CENTAVOS = 18;
+
+    private MargemMinimaVenda() {
+    }
+
+    static boolean atende(BigDecimal valorVenda, BigDecimal valorCompra) {
+        if (cabeEmCentavos(valorVenda) && cabeEmCentavos(valorCompra)) {
+            return atende(paraCentavos(valorVenda), paraCentavos(valorCompra));
+        }
+        return valorVenda.multiply(DENOMINADOR_MARGEM_DECIMAL)
+                .compareTo(valorCompra.multiply(NUMERADOR_MARGEM_DECIMAL)) >= 0;
+    }
+
+    static boolean atende(long valorVendaCentavos, long valorCompraCentavos) {
+        return Math.multiplyExact(valorVendaCentavos, DENOMINADOR_MARGEM)
+                >= Math.multiplyExact(valorCompraCentavos, NUMERADOR_MARGEM);
+    }
+
+    /**
+     * Valor mínimo de venda exato; usado apenas para montar a mensagem de rejeição.
+     */
+    static BigDecimal valorMinimoVenda(BigDecimal valorCompra) {
+        return valorCompra.multiply(NUMERADOR_MARGEM_DECIMAL).divide(DENOMINADOR_MARGEM_DECIMAL);
+    }
+
+    /**
+     * Se o valor não tem frações de centavo na escala e cabe, em centavos, no ponto fixo.
+     * Zeros à direita além dos centavos ({@code 1.500}) também mandam o valor para o
+     * {@link BigDecimal}: tratá-los exigiria normalizar o valor, o que aloca.
+     */
+    static boolean cabeEmCentavos(BigDecimal valor) {
+        return valor.scale() <= ESCALA && valor.precision() - valor.scale() + ESCALA <= DIGITOS_MAXIMOS_CENTAVOS;
+    }
+
+    /**
+     * O {@link BigDecimal} intermediário não escapa do método e é eliminado pela escape
+     * analysis do C2 depois do aquecimento.
+     *
+     * @throws ArithmeticException se o valor tiver frações de centavo ou não couber em um {@code long};
+     *                             {@link #cabeEmCentavos(BigDecimal)} evita a chamada nesses casos
+     */
+    static long paraCentavos(BigDecimal valor) {
+        return valor.scaleByPowerOfTen(ESCALA).longValueExact();
+    }
+}
@@ -1,11 +1,13 @@
 package br.com.ccs.validators;
 
+import br.com.ccs.config.LockProperties;
 import br.com.ccs.entities.Produto;
 import br.com.ccs.exceptions.LockModeException;
 import br.com.ccs.exceptions.PrecoVendaInvalidoException;
+import br.com.ccs.locks.CoordenadorLocksProdutos;
+import br.com.ccs.metrics.LockMetrics;
 import br.com.ccs.services.ProdutoService;
 import jakarta.persistence.EntityManager;
-import jakarta.persistence.LockModeType;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
@@ -13,8 +15,11 @@ import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.UUID;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -23,60 +28,128 @@ import java.util.stream.Collectors;
 @Slf4j
 public class PrecoMinimoVendaValidator {
 
-    private static final float PERCENTUAL_MINIMO_VENDA = 1.5F;
     private final ProdutoService produtoService;
     private final EntityManager entityManager;
+    private final LockProperties lockProperties;
+    private final LockMetrics lockMetrics;
+    private final CoordenadorLocksProdutos coordenadorLocksProdutos;
+
+    /**
+     * Confere a margem mínima sem bloquear nenhum produto, pelos custos do snapshot em memória
+     * e, para os ausentes dele, por uma leitura simples no banco, lançando
+     * {@link PrecoVendaInvalidoException} no primeiro produto abaixo da margem.
+     * <p>
+     * Pedidos condenados são rejeitados aqui, sem segurar locks nem atrasar a atualização do
+     * catálogo. Os aprovados ainda passam por {@link #validarValorMinimoVenda(List)}, sob lock,
+     * já que o custo pode mudar até lá. Não faz nada quando a pré-validação está desligada ou
+     * a estratégia já usa o snapshot na validação.
+     */
+    public void prevalidarValorMinimoVenda(List<Produto> produtos) {
+        if (!lockProperties.isPreValidacao() || lockProperties.getEstrategia().usaSnapshot()) {
+            return;
+        }
+
+        var custos = produtoService.findCustosPreValidacaoByIdIn(produtos.stream().map(Produto::getId).distinct().toList());
+        for (var produto : produtos) {
+            var custo = custos.get(produto.getId());
+            if (Objects.nonNull(custo) && !MargemMinimaVenda.atende(produto.getValorVenda(), custo.valorCompra())) {
+                lockMetrics.registrarExcecao(PrecoVendaInvalidoException.class);
+                throw new PrecoVendaInvalidoException(mensagemPrecoInvalido(produto, custo.valorCompra()));
+            }
+        }
+    }
 
     @Transactional(propagation = Propagation.MANDATORY)
     public void validarValorMinimoVenda(List<Produto> produtos) {
-        log.info("\nIniciando validações do valor mínimo de venda dos produtos.");
+        validarValorMinimoVenda(produtos, bloquearProdutos(produtos));
+    }
+
+    /**
+     * Bloqueia, em uma única consulta, todos os produtos informados, permitindo
+     * que vários pedidos sejam validados com {@link #validarValorMinimoVenda(List, Map)}
+     * sobre o mesmo conjunto de locks.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Map<UUID, Produto> bloquearProdutos(Collection<Produto> produtos) {
         var idsProdutos = produtos.stream().map(Produto::getId).toList();
+        coordenadorLocksProdutos.bloquearAteFimTransacao(idsProdutos);
+        var produtosLock = lockProperties.getEstrategia().usaSnapshot()
+                ? produtoService.findCustosByIdIn(idsProdutos)
+                : produtoService.findByIdIn(idsProdutos);
 
-        var produtosLockMap = produtoService.findByIdIn(idsProdutos)
-                .stream()
+        return produtosLock.stream()
                 .collect(Collectors.toMap(Produto::getId, Function.identity()));
+    }
 
+    /**
+     * Valida os produtos contra locks já adquiridos por {@link #bloquearProdutos(Collection)}.
+     * <p>
+     * Não é transacional de propósito: uma {@link PrecoVendaInvalidoException} aqui rejeita
+     * apenas o pedido validado, sem marcar para rollback a transação que grava o grupo.
+     */
+    public void validarValorMinimoVenda(List<Produto> produtos, Map<UUID, Produto> produtosLockMap) {
+        log.info("\nIniciando validações do valor mínimo de venda dos produtos.");
         produtos.forEach(produto -> validarValorMinimoVenda(produto, produtosLockMap.get(produto.getId())));
+        log.info("\nValor mínimo de venda validado com sucesso para {} produtos", produtos.size());
     }
 
+    /**
+     * Os locks dos produtos já estão adquiridos aqui, então o registro por produto fica em
+     * {@code debug}, para não alongar o tempo de lock de pedidos com muitos itens, e é
+     * protegido por {@code isDebugEnabled()}: com três argumentos o SLF4J monta o array de
+     * varargs mesmo com o nível desligado.
+     */
     private void validarValorMinimoVenda(Produto produtoVenda, Produto produtoLock) {
         checkLockMode(produtoLock);
-        var valorMinimoVenda = calcularValorMinimoVenda(produtoLock);
 
-        if (valorMinimoVenda.compareTo(produtoVenda.getValorVenda()) > 0) {
-            lancarException(produtoVenda, produtoLock, valorMinimoVenda);
+        if (!MargemMinimaVenda.atende(produtoVenda.getValorVenda(), produtoLock.getValorCompra())) {
+            lockMetrics.registrarExcecao(PrecoVendaInvalidoException.class);
+            lancarException(produtoVenda, produtoLock);
         }
 
-        log.info("\nValor mínimo de venda validado com sucesso para o produto: "
-                .concat(produtoVenda.getNome())
-                .concat("\nValor Venda: ").concat(produtoVenda.getValorVenda().toString())
-                .concat("\nValor Compra: ").concat(produtoLock.getValorCompra().toString())
-        );
-    }
-
-    private BigDecimal calcularValorMinimoVenda(Produto produto) {
-        return produto.getValorCompra().multiply(BigDecimal.valueOf(PERCENTUAL_MINIMO_VENDA));
+        if (log.isDebugEnabled()) {
+            log.debug("\nValor mínimo de venda validado com sucesso para o produto: {}\nValor Venda: {}\nValor Compra: {}",
+                    produtoVenda.getNome(), produtoVenda.getValorVenda(), produtoLock.getValorCompra());
+        }
     }
 
     private void checkLockMode(Produto produto) {
+        if (lockProperties.getEstrategia().usaSnapshot()) {
+            checkVersaoSnapshot(produto);
+            return;
+        }
+
         var lockModeType = entityManager.getLockMode(produto);
+        var lockModeEsperado = lockProperties.getEstrategia().getLockModeType();
 
-        if (LockModeType.PESSIMISTIC_WRITE.compareTo(lockModeType) != 0) {
-            throw new LockModeException("\nO LockModeType desta operação deveria ser igual a " + LockModeType.PESSIMISTIC_WRITE);
+        if (lockModeEsperado.compareTo(lockModeType) != 0) {
+            lockMetrics.registrarExcecao(LockModeException.class);
+            throw new LockModeException("\nO LockModeType desta operação deveria ser igual a " + lockModeEsperado);
         }
 
-        log.info("\nLockModeType validado com sucesso para o produto: " + produto.getNome());
+        log.debug("\nLockModeType validado com sucesso para o produto: {}", produto.getNome());
     }
 
-    private static void lancarException(Produto produtoVenda, Produto produtoLock, BigDecimal valorMinimoVenda) {
+    private void checkVersaoSnapshot(Produto produto) {
+        if (Objects.isNull(produto.getVersao())) {
+            lockMetrics.registrarExcecao(LockModeException.class);
+            throw new LockModeException("\nO produto deveria ter uma versão do snapshot para conferência no commit: " + produto.getId());
+        }
+    }
+
+    private static void lancarException(Produto produtoVenda, Produto produtoLock) {
         throw new PrecoVendaInvalidoException(
-                "\nPreço de venda menor que o permitido para o produto: "
-                        .concat(produtoVenda.getNome())
-                        .concat("\nValor Venda: ").concat(produtoVenda.getValorVenda().toString())
-                        .concat("\nValor Compra: ").concat(produtoLock.getValorCompra().toString())
-                        .concat("\nValor Mínimo Venda: ").concat(valorMinimoVenda.toString())
+                mensagemPrecoInvalido(produtoVenda, produtoLock.getValorCompra())
                         .concat("\nData e Hora da atualização: ")
                         .concat(Objects.isNull(produtoLock.getDataHoraAlteracao()) ? "Não Alterado" : produtoLock.getDataHoraAlteracao().toString())
         );
     }
+
+    private static String mensagemPrecoInvalido(Produto produtoVenda, BigDecimal valorCompra) {
+        return "\nPreço de venda menor que o permitido para o produto: "
+                .concat(produtoVenda.getNome())
+                .concat("\nValor Venda: ").concat(produtoVenda.getValorVenda().toString())
+                .concat("\nValor Compra: ").concat(valorCompra.toString())
+                .concat("\nValor Mínimo Venda: ").concat(MargemMinimaVenda.valorMinimoVenda(valorCompra).toString());
+    }
 }
@@ -0,0 +1,39 @@
+-- Esquema inicial, gerado a partir do mapeamento das entidades (schema-generation do Hibernate).
+-- Aplicado pelo Flyway no perfil "startup", no lugar de ddl-auto=update. Migrações aplicadas
+-- não são editadas: toda alteração do mapeamento vai em um novo V<n>__descricao.sql, e o
+-- SchemaStartupTest falha enquanto as migrações e as entidades divergirem.
+
+create table produto (
+    valor_compra numeric(38,2),
+    valor_venda numeric(38,2),
+    data_hora_alteracao timestamp(6),
+    data_hora_criacao timestamp(6),
+    versao bigint default 0 not null,
+    id uuid not null,
+    nome varchar(255),
+    primary key (id)
+);
+
+create table pedido (
+    id uuid not null,
+    primary key (id)
+);
+
+create table item_pedido (
+    quantidade integer,
+    valor_unitario numeric(38,2),
+    id uuid not null,
+    pedido_id uuid not null,
+    produto_id uuid not null,
+    primary key (id)
+);
+
+alter table item_pedido
+    add constraint FK60ym08cfoysa17wrn1swyiuda
+    foreign key (pedido_id)
+    references pedido;
+
+alter table item_pedido
+    add constraint FKtk55mn6d6bvl5h0no5uagi3sf
+    foreign key (produto_id)
+    references produto;
@@ -0,0 +1,53 @@
+package br.com.ccs;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mede o tempo até o contexto da aplicação estar pronto, com o perfil padrão
+ * ({@code ddl-auto=update}) e com o perfil "startup" (esquema do script versionado).
+ * <p>
+ * Cada fork mede uma única inicialização, em uma JVM que ainda não carregou nem compilou as
+ * classes do Spring e do Hibernate, como acontece ao subir uma nova instância. Para medir o
+ * AOT, gere o código com {@code -Paot} e acrescente {@code -jvmArgsAppend -Dspring.aot.enabled=true}
+ * aos argumentos do JMH; o ganho do CDS é medido rodando o jar de {@code -Pcds} com e sem
+ * {@code -XX:SharedArchiveFile}.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(10)
+@State(Scope.Benchmark)
+public class InicializacaoBenchmark {
+
+    @Param({"default", "startup"})
+    private String perfil;
+
+    @Benchmark
+    public void iniciar() {
+        try (var context = new SpringApplicationBuilder(App.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                .profiles(perfil)
+                .properties(
+                        "logging.level.root=WARN",
+                        "spring.datasource.url=jdbc:h2:mem:inicializacao-" + UUID.randomUUID())
+                .run()) {
+            context.getBean(App.class);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package br.com.ccs;
+
+import br.com.ccs.entities.Produto;
+import br.com.ccs.repositories.ProdutoRepository;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Produtos usados pelos testes: salvo indicação contrária, com valor de venda de 155,79 e
+ * valor de compra de 100,00, dentro da margem mínima de venda.
+ */
+public final class ProdutosFixture {
+
+    public static final BigDecimal VALOR_VENDA = BigDecimal.valueOf(155.79);
+    public static final BigDecimal VALOR_COMPRA = BigDecimal.valueOf(100.00);
+
+    private ProdutosFixture() {
+    }
+
+    public static Produto produto(String nome) {
+        return produto(nome, VALOR_COMPRA);
+    }
+
+    public static Produto produto(String nome, BigDecimal valorCompra) {
+        return Produto.builder()
+                .nome(nome)
+                .valorVenda(VALOR_VENDA)
+                .valorCompra(valorCompra)
+                .build();
+    }
+
+    /**
+     * Produtos de "Produto 1" a "Produto {@code quantidade}", ainda sem ID.
+     */
+    public static List<Produto> produtos(int quantidade) {
+        var produtos = new ArrayList<Produto>(quantidade);
+        for (var i = 1; i <= quantidade; i++) {
+            produtos.add(produto("Produto " + i));
+        }
+        return produtos;
+    }
+
+    public static Produto salvar(ProdutoRepository produtoRepository, String nome) {
+        return produtoRepository.saveAndFlush(produto(nome));
+    }
+
+    public static Produto salvar(ProdutoRepository produtoRepository, String nome, BigDecimal valorCompra) {
+        return produtoRepository.saveAndFlush(produto(nome, valorCompra));
+    }
+
+    /**
+     * Grava {@link #produtos(int)} e devolve uma lista mutável, na ordem de criação.
+     */
+    public static List<Produto> salvar(ProdutoRepository produtoRepository, int quantidade) {
+        return new ArrayList<>(produtoRepository.saveAllAndFlush(produtos(quantidade)));
+    }
+}
@@ -0,0 +1,195 @@
+package br.com.ccs.admissao;
+
+import br.com.ccs.config.AdmissaoPedidosProperties;
+import br.com.ccs.exceptions.SobrecargaException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LimitadorConcorrenciaTest {
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testNuncaExecutaMaisQueOLimite() {
+        var limitador = criarLimitador(4, Duration.ofSeconds(1), 1_000);
+        var simultaneas = new AtomicInteger();
+        var maximoSimultaneas = new AtomicInteger();
+
+        var resultados = new ArrayList<CompletableFuture<Integer>>();
+        for (var i = 0; i < 200; i++) {
+            resultados.add(limitador.executar(() -> {
+                maximoSimultaneas.accumulateAndGet(simultaneas.incrementAndGet(), Math::max);
+                dormir(2);
+                return simultaneas.decrementAndGet();
+            }));
+        }
+        CompletableFuture.allOf(resultados.toArray(CompletableFuture[]::new)).join();
+
+        assertTrue(maximoSimultaneas.get() <= 4, "Executou " + maximoSimultaneas.get() + " operações simultâneas");
+        assertEquals(0, limitador.emExecucao());
+        assertEquals(0, limitador.rejeitadas());
+    }
+
+    /**
+     * Com a única vaga ocupada e a fila cheia, as próximas operações são rejeitadas na hora.
+     */
+    @Test
+    void testRejeitaQuandoFilaCheia() {
+        var limitador = criarLimitador(1, Duration.ofSeconds(1), 2);
+        var liberar = new CountDownLatch(1);
+
+        var resultados = new ArrayList<CompletableFuture<Boolean>>();
+        for (var i = 0; i < 5; i++) {
+            resultados.add(limitador.executar(() -> {
+                aguardar(liberar);
+                return true;
+            }));
+        }
+
+        assertTrue(resultados.get(3).isCompletedExceptionally());
+        assertTrue(resultados.get(4).isCompletedExceptionally());
+        assertInstanceOf(SobrecargaException.class,
+                assertThrows(CompletionException.class, () -> resultados.get(4).join()).getCause());
+        assertEquals(2, limitador.aguardando());
+
+        liberar.countDown();
+        resultados.subList(0, 3).forEach(resultado -> assertTrue(resultado.join()));
+        assertEquals(2, limitador.rejeitadas());
+    }
+
+    /**
+     * Com a única vaga presa, a operação na fila é rejeitada ao fim do tempo máximo de espera,
+     * sem depender de outra operação terminar, e deixa a fila.
+     */
+    @Test
+    void testRejeitaPorTempoNaFilaSemVagaLiberada() {
+        var limitador = criarLimitador(1, Duration.ofSeconds(1), 10, Duration.ofMillis(50));
+        var liberar = new CountDownLatch(1);
+
+        var ocupando = limitador.executar(() -> {
+            aguardar(liberar);
+            return true;
+        });
+        var aguardando = limitador.executar(() -> true);
+
+        var erro = assertThrows(CompletionException.class,
+                () -> aguardando.orTimeout(5, TimeUnit.SECONDS).join());
+        assertInstanceOf(SobrecargaException.class, erro.getCause());
+        assertFalse(ocupando.isDone());
+        assertEquals(0, limitador.aguardando());
+        assertEquals(1, limitador.rejeitadas());
+
+        liberar.countDown();
+        assertTrue(ocupando.join());
+        assertEquals(0, limitador.emExecucao());
+    }
+
+    /**
+     * Operações acima da latência alvo reduzem o limite até o mínimo; operações rápidas com
+     * o limite em uso o fazem voltar a crescer até o máximo.
+     */
+    @Test
+    void testLimiteReduzComLatenciaAltaERecuperaComLatenciaBaixa() {
+        var limitador = criarLimitador(8, Duration.ofMillis(20), 1_000);
+
+        executarEmLote(limitador, 40, 30);
+        assertEquals(1.0, limitador.limite(), 0.001);
+
+        for (var rodada = 0; rodada < 50 && limitador.limite() < 8; rodada++) {
+            executarEmLote(limitador, 40, 0);
+        }
+        assertEquals(8.0, limitador.limite(), 0.001);
+    }
+
+    /**
+     * Um {@link Error} na operação completa o resultado com ele e devolve a vaga, e a operação
+     * que aguardava na fila é executada.
+     */
+    @Test
+    void testErroNaOperacaoDevolveVaga() {
+        var limitador = criarLimitador(1, Duration.ofSeconds(1), 10);
+
+        var comErro = limitador.<Boolean>executar(() -> {
+            throw new AssertionError("falha na operação");
+        });
+        var seguinte = limitador.executar(() -> true);
+
+        assertInstanceOf(AssertionError.class,
+                assertThrows(CompletionException.class, comErro::join).getCause());
+        assertTrue(seguinte.join());
+        assertEquals(0, limitador.emExecucao());
+    }
+
+    /**
+     * Com o executor encerrado, a operação admitida falha com a rejeição do executor, em vez de
+     * ficar pendente, e não consome a vaga.
+     */
+    @Test
+    void testExecutorEncerradoFalhaSemConsumirVaga() {
+        var limitador = criarLimitador(1, Duration.ofSeconds(1), 10);
+        executor.shutdown();
+
+        var resultado = limitador.executar(() -> true);
+
+        assertInstanceOf(RejectedExecutionException.class,
+                assertThrows(CompletionException.class, resultado::join).getCause());
+        assertEquals(0, limitador.emExecucao());
+    }
+
+    private static void executarEmLote(LimitadorConcorrencia limitador, int quantidade, long duracaoMillis) {
+        CompletableFuture.allOf(IntStream.range(0, quantidade)
+                .mapToObj(i -> limitador.executar(() -> {
+                    dormir(duracaoMillis);
+                    return i;
+                }))
+                .toArray(CompletableFuture[]::new)).join();
+    }
+
+    private LimitadorConcorrencia criarLimitador(int limiteMaximo, Duration latenciaAlvo, int tamanhoFila) {
+        return criarLimitador(limiteMaximo, latenciaAlvo, tamanhoFila, new AdmissaoPedidosProperties().getTempoMaximoFila());
+    }
+
+    private LimitadorConcorrencia criarLimitador(int limiteMaximo, Duration latenciaAlvo, int tamanhoFila,
+                                                 Duration tempoMaximoFila) {
+        var properties = new AdmissaoPedidosProperties();
+        properties.setLatenciaAlvo(latenciaAlvo);
+        properties.setTamanhoFila(tamanhoFila);
+        properties.setTempoMaximoFila(tempoMaximoFila);
+        return new LimitadorConcorrencia(properties, limiteMaximo, executor, e -> false);
+    }
+
+    private static void dormir(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void aguardar(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
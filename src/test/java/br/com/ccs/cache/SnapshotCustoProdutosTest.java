@@ -0,0 +1,90 @@
+package br.com.ccs.cache;
+
+import br.com.ccs.config.SnapshotCustoProperties;
+import br.com.ccs.repositories.projections.CustoProduto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SnapshotCustoProdutosTest {
+
+    private final UUID id = UUID.randomUUID();
+
+    @Test
+    void testVersaoAntigaNaoSubstituiVersaoMaisNova() {
+        var snapshot = criarSnapshot(10);
+
+        snapshot.armazenar(List.of(custo(id, 5)), snapshot.geracao());
+        snapshot.armazenar(List.of(custo(id, 4)), snapshot.geracao());
+
+        assertEquals(5, snapshot.buscar(List.of(id)).get(id).versao());
+    }
+
+    @Test
+    void testCargaIniciadaAntesDeInvalidacaoEDescartada() {
+        var snapshot = criarSnapshot(10);
+        var geracaoLida = snapshot.geracao();
+
+        snapshot.invalidar(List.of(id));
+        snapshot.armazenar(List.of(custo(id, 1)), geracaoLida);
+
+        assertTrue(snapshot.buscar(List.of(id)).isEmpty());
+    }
+
+    /**
+     * A invalidação que acontece entre a conferência da geração e a gravação dos custos não
+     * pode deixar no snapshot o valor lido antes dela.
+     */
+    @Test
+    void testInvalidacaoDuranteArmazenamentoRetiraCustosIncluidos() {
+        var snapshot = criarSnapshot(10);
+        var lidos = new AbstractList<CustoProduto>() {
+            private boolean invalidado;
+
+            @Override
+            public CustoProduto get(int index) {
+                if (!invalidado) {
+                    invalidado = true;
+                    snapshot.invalidar(List.of(id));
+                }
+                return custo(id, 1);
+            }
+
+            @Override
+            public int size() {
+                return 1;
+            }
+        };
+
+        snapshot.armazenar(lidos, snapshot.geracao());
+
+        assertTrue(snapshot.buscar(List.of(id)).isEmpty());
+    }
+
+    @Test
+    void testTamanhoLimitadoAoMaximoConfigurado() {
+        var snapshot = criarSnapshot(100);
+
+        snapshot.armazenar(IntStream.range(0, 1_000).mapToObj(i -> custo(UUID.randomUUID(), 1)).toList(), snapshot.geracao());
+
+        assertTrue(snapshot.tamanho() <= 100, "Tamanho do snapshot: " + snapshot.tamanho());
+    }
+
+    private static SnapshotCustoProdutos criarSnapshot(int tamanhoMaximo) {
+        var properties = new SnapshotCustoProperties();
+        properties.setTamanhoMaximo(tamanhoMaximo);
+        return new SnapshotCustoProdutos(properties, new SimpleMeterRegistry());
+    }
+
+    private static CustoProduto custo(UUID id, long versao) {
+        return new CustoProduto(id, BigDecimal.valueOf(100.00), versao);
+    }
+}
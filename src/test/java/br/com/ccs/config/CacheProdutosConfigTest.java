@@ -0,0 +1,117 @@
+package br.com.ccs.config;
+
+import br.com.ccs.ProdutosFixture;
+import br.com.ccs.entities.Pedido;
+import br.com.ccs.entities.Produto;
+import br.com.ccs.entities.ResumoProduto;
+import br.com.ccs.repositories.PedidoRepository;
+import br.com.ccs.repositories.ProdutoRepository;
+import br.com.ccs.services.ItemPedidoService;
+import br.com.ccs.services.PedidoService;
+import br.com.ccs.services.ProdutoService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = "app.produtos.cache.habilitado=true")
+class CacheProdutosConfigTest {
+
+    @Inject
+    private ProdutoRepository produtoRepository;
+    @Inject
+    private ProdutoService produtoService;
+    @Inject
+    private ItemPedidoService itemPedidoService;
+    @Inject
+    private PedidoService pedidoService;
+    @Inject
+    private PedidoRepository pedidoRepository;
+    @Inject
+    private EntityManagerFactory entityManagerFactory;
+    @Inject
+    private MeterRegistry meterRegistry;
+    private Produto produto;
+
+    @BeforeEach
+    void setUp() {
+        produto = ProdutosFixture.salvar(produtoRepository, "Coca-cola");
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @AfterEach
+    void tearDown() {
+        pedidoRepository.deleteAll();
+        produtoRepository.deleteAll();
+    }
+
+    @Test
+    void testSegundaBuscaDoResumoVemDoCache() {
+        var acertosAntes = acessos("acerto");
+
+        produtoService.findResumosByIdIn(List.of(produto.getId()));
+        var resumo = produtoService.findResumosByIdIn(List.of(produto.getId())).get(produto.getId());
+
+        assertEquals(acertosAntes + 1, acessos("acerto"));
+        assertEquals(produto.getNome(), resumo.getNome());
+        assertTrue(meterRegistry.get(CacheProdutosConfig.TAXA_ACERTO).gauge().value() > 0);
+    }
+
+    @Test
+    void testLeituraComLockNaoPassaPeloCache() {
+        produtoService.findByIdIn(List.of(produto.getId()));
+
+        assertFalse(entityManagerFactory.getCache().contains(ResumoProduto.class, produto.getId()));
+        assertFalse(entityManagerFactory.getCache().contains(Produto.class, produto.getId()));
+    }
+
+    /**
+     * O resumo não tem valor de compra: continua válido no cache depois da atualização, e o
+     * produto inteiro, que não é cacheado, traz o valor novo.
+     */
+    @Test
+    void testAtualizacaoValorCompraNaoDesatualizaCache() {
+        produtoService.findResumosByIdIn(List.of(produto.getId()));
+
+        produtoService.atualizarValorCompraProdutos(BigDecimal.valueOf(200.00));
+
+        assertTrue(entityManagerFactory.getCache().contains(ResumoProduto.class, produto.getId()));
+        var produtoAtualizado = produtoRepository.findById(produto.getId()).orElseThrow();
+        assertEquals(0, BigDecimal.valueOf(200.00).compareTo(produtoAtualizado.getValorCompra()));
+    }
+
+    /**
+     * Os itens montados pelos IDs dos produtos levam o valor de venda do resumo em cache e são
+     * gravados referenciando o produto, sem carregá-lo.
+     */
+    @Test
+    void testItensMontadosPeloResumoEmCacheSaoGravados() {
+        produtoService.findResumosByIdIn(List.of(produto.getId()));
+        var acertosAntes = acessos("acerto");
+
+        var pedido = Pedido.builder().build();
+        pedido.setItens(itemPedidoService.criarItens(pedido, Map.of(produto.getId(), 2)));
+        var resultados = pedidoService.saveAll(List.of(pedido));
+
+        assertTrue(resultados.getFirst().gravado());
+        assertEquals(acertosAntes + 1, acessos("acerto"));
+        var resumoItens = pedidoRepository.findResumoItensByPedidoId(pedido.getId());
+        assertEquals(1, resumoItens.size());
+        assertEquals(ProdutosFixture.VALOR_VENDA, resumoItens.getFirst().valorUnitario());
+    }
+
+    private double acessos(String resultado) {
+        return meterRegistry.get(CacheProdutosConfig.ACESSOS).tag("resultado", resultado).functionCounter().count();
+    }
+}
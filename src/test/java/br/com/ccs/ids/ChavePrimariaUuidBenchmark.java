@@ -0,0 +1,103 @@
+package br.com.ccs.ids;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Compara a inserção de {@code linhas} registros em uma tabela do H2 em arquivo com chave
+ * primária UUID v4 ({@link UUID#randomUUID()}) e v7 ({@link GeradorUuidV7}).
+ * <p>
+ * Cada operação insere a tabela inteira em lotes JDBC de {@link #TAMANHO_LOTE}, então a
+ * vazão em linhas/s é {@code linhas} dividido pelo tempo reportado. O espaço em disco da
+ * tabela e do índice é impresso ao fim de cada iteração.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ChavePrimariaUuidBenchmark {
+
+    private static final int TAMANHO_LOTE = 1_000;
+
+    public enum TipoChave {
+        V4(UUID::randomUUID),
+        V7(GeradorUuidV7::gerar);
+
+        private final Supplier<UUID> gerador;
+
+        TipoChave(Supplier<UUID> gerador) {
+            this.gerador = gerador;
+        }
+    }
+
+    @Param({"V4", "V7"})
+    private TipoChave tipoChave;
+    @Param({"1000000", "5000000"})
+    private int linhas;
+
+    private Path diretorio;
+    private Connection connection;
+
+    @Setup(Level.Iteration)
+    public void setUp() throws IOException, SQLException {
+        diretorio = Files.createTempDirectory("chave-uuid-");
+        connection = DriverManager.getConnection("jdbc:h2:" + diretorio.resolve("banco"), "sa", "");
+        connection.setAutoCommit(false);
+        try (var statement = connection.createStatement()) {
+            statement.execute("create table chave (id uuid primary key, valor int not null)");
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws IOException, SQLException {
+        try (var statement = connection.createStatement()) {
+            statement.execute("checkpoint sync");
+            var resultSet = statement.executeQuery("select disk_space_used('CHAVE')");
+            resultSet.next();
+            System.out.printf("%n%s com %d linhas: %d KiB em disco para tabela e índice%n",
+                    tipoChave, linhas, resultSet.getLong(1) / 1024);
+        }
+        connection.close();
+        FileSystemUtils.deleteRecursively(diretorio);
+    }
+
+    @Benchmark
+    public void inserir() throws SQLException {
+        try (var insert = connection.prepareStatement("insert into chave (id, valor) values (?, ?)")) {
+            for (var i = 1; i <= linhas; i++) {
+                insert.setObject(1, tipoChave.gerador.get());
+                insert.setInt(2, i);
+                insert.addBatch();
+
+                if (i % TAMANHO_LOTE == 0 || i == linhas) {
+                    insert.executeBatch();
+                    connection.commit();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package br.com.ccs.ids;
+
+import br.com.ccs.locks.OrdemCanonicaIds;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GeradorUuidV7Test {
+
+    @Test
+    void testUuidGeradoTemVersaoVarianteETimestampAtual() {
+        var antes = System.currentTimeMillis();
+        var uuid = GeradorUuidV7.gerar();
+
+        assertEquals(7, uuid.version());
+        assertEquals(2, uuid.variant());
+        assertTrue(uuid.getMostSignificantBits() >>> 16 >= antes);
+    }
+
+    @Test
+    void testUuidsGeradosEmSequenciaSaoCrescentes() {
+        var ids = IntStream.range(0, 100_000)
+                .mapToObj(i -> GeradorUuidV7.gerar())
+                .toList();
+
+        for (var i = 1; i < ids.size(); i++) {
+            assertTrue(OrdemCanonicaIds.COMPARADOR.compare(ids.get(i - 1), ids.get(i)) < 0);
+        }
+    }
+
+    /**
+     * Muitas virtual threads gerando ao mesmo tempo: nenhum id pode se repetir e cada
+     * thread deve enxergar seus próprios ids em ordem crescente.
+     */
+    @Test
+    void testUuidsUnicosSobConcorrencia() {
+        var threads = 1_000;
+        var idsPorThread = 1_000;
+        var idsGeradosPorThread = new ConcurrentLinkedQueue<List<UUID>>();
+
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (var t = 0; t < threads; t++) {
+                executor.submit(() -> {
+                    var ids = new ArrayList<UUID>(idsPorThread);
+                    for (var i = 0; i < idsPorThread; i++) {
+                        ids.add(GeradorUuidV7.gerar());
+                    }
+                    idsGeradosPorThread.add(ids);
+                });
+            }
+        }
+
+        var todos = new HashSet<UUID>();
+        idsGeradosPorThread.forEach(ids -> {
+            assertEquals(ids, OrdemCanonicaIds.ordenar(ids));
+            todos.addAll(ids);
+        });
+        assertEquals(threads, idsGeradosPorThread.size());
+        assertEquals(threads * idsPorThread, todos.size());
+    }
+}
@@ -0,0 +1,190 @@
+package br.com.ccs.locks;
+
+import br.com.ccs.config.LockProperties;
+import br.com.ccs.exceptions.RepositoryException;
+import br.com.ccs.metrics.LockMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CoordenadorLocksProdutosTest {
+
+    private final List<UUID> ids = IntStream.range(0, 50).mapToObj(i -> UUID.randomUUID()).toList();
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testOperacoesSobreOMesmoProdutoSaoSerializadas() {
+        var coordenador = criarCoordenador(1024, Duration.ofSeconds(30));
+        var simultaneas = new AtomicInteger();
+        var maximoSimultaneas = new AtomicInteger();
+
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (var i = 0; i < 200; i++) {
+                var idsOperacao = List.of(ids.getFirst(), ids.get(ThreadLocalRandom.current().nextInt(ids.size())));
+                executor.submit(() -> coordenador.executar(idsOperacao, () -> {
+                    maximoSimultaneas.accumulateAndGet(simultaneas.incrementAndGet(), Math::max);
+                    Thread.yield();
+                    simultaneas.decrementAndGet();
+                }));
+            }
+        }
+
+        assertEquals(1, maximoSimultaneas.get());
+    }
+
+    /**
+     * Com uma estratégia compartilhada, operações sobre os mesmos produtos não se excluem na
+     * JVM, mas quem segura todas as listras espera por elas.
+     */
+    @Test
+    void testEstrategiaCompartilhadaExecutaOperacoesDosMesmosProdutosEmParalelo() throws Exception {
+        var coordenador = criarCoordenador(1024, Duration.ofSeconds(30), EstrategiaLock.PESSIMISTA_LEITURA);
+        var dentro = new CountDownLatch(2);
+        var liberar = new CountDownLatch(1);
+
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            var operacoes = IntStream.range(0, 2)
+                    .mapToObj(i -> CompletableFuture.runAsync(() -> coordenador.executar(ids.subList(0, 5), () -> {
+                        dentro.countDown();
+                        assertDoesNotThrow(() -> liberar.await());
+                    }), executor))
+                    .toList();
+
+            assertTrue(dentro.await(5, TimeUnit.SECONDS), "As operações sobre os mesmos produtos não correram em paralelo");
+
+            var exclusiva = CompletableFuture.runAsync(() -> coordenador.executarComTodas(() -> {
+            }), executor);
+            Thread.sleep(100);
+            assertFalse(exclusiva.isDone(), "A operação exclusiva não esperou as compartilhadas");
+
+            liberar.countDown();
+            operacoes.forEach(CompletableFuture::join);
+            exclusiva.get(5, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Com poucas listras, muitos produtos compartilham a mesma; conjuntos de ids em ordens
+     * aleatórias não podem levar a deadlock.
+     */
+    @Test
+    void testIdsEmOrdensDiferentesNaoCausamDeadlock() {
+        var coordenador = criarCoordenador(8, Duration.ofSeconds(30));
+        var concluidas = new AtomicInteger();
+
+        assertTimeoutPreemptively(Duration.ofSeconds(20), () -> {
+            try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (var i = 0; i < 500; i++) {
+                    var idsOperacao = new ArrayList<>(ids);
+                    Collections.shuffle(idsOperacao);
+                    executor.submit(() -> coordenador.executar(idsOperacao.subList(0, 10), concluidas::incrementAndGet));
+                }
+            }
+        });
+
+        assertEquals(500, concluidas.get());
+    }
+
+    @Test
+    void testTempoMaximoEsperaExcedidoLiberaListrasAdquiridas() throws Exception {
+        var coordenador = criarCoordenador(1024, Duration.ofMillis(50));
+        var bloqueado = new CountDownLatch(1);
+        var liberar = new CountDownLatch(1);
+
+        var ocupante = CompletableFuture.runAsync(() -> coordenador.executar(List.of(ids.get(1)), () -> {
+            bloqueado.countDown();
+            assertDoesNotThrow(() -> liberar.await());
+        }));
+        bloqueado.await();
+
+        assertThrows(RepositoryException.class,
+                () -> coordenador.executar(List.of(ids.get(0), ids.get(1)), () -> {
+                }));
+        assertDoesNotThrow(() -> CompletableFuture.runAsync(() -> coordenador.executar(List.of(ids.get(0)), () -> {
+        })).get());
+
+        liberar.countDown();
+        ocupante.get();
+    }
+
+    @Test
+    void testBloquearAteFimTransacaoLiberaNoFimDaTransacao() throws Exception {
+        var coordenador = criarCoordenador(1024, Duration.ofMillis(50));
+        TransactionSynchronizationManager.initSynchronization();
+
+        coordenador.bloquearAteFimTransacao(List.of(ids.getFirst()));
+
+        var outraThread = CompletableFuture.runAsync(() -> coordenador.executar(List.of(ids.getFirst()), () -> {
+        }));
+        assertThrows(Exception.class, outraThread::get);
+
+        TransactionSynchronizationUtils.invokeAfterCompletion(
+                TransactionSynchronizationManager.getSynchronizations(), TransactionSynchronization.STATUS_COMMITTED);
+        assertDoesNotThrow(() -> CompletableFuture.runAsync(() -> coordenador.executar(List.of(ids.getFirst()), () -> {
+        })).get());
+    }
+
+    @Test
+    void testExecutarComDisponiveisIgnoraListrasOcupadasSemEsperar() throws Exception {
+        var coordenador = criarCoordenador(1024, Duration.ofSeconds(30));
+        var bloqueado = new CountDownLatch(1);
+        var liberar = new CountDownLatch(1);
+
+        var ocupante = CompletableFuture.runAsync(() -> coordenador.executar(List.of(ids.get(1)), () -> {
+            bloqueado.countDown();
+            assertDoesNotThrow(() -> liberar.await());
+        }));
+        bloqueado.await();
+
+        var recebidos = assertTimeoutPreemptively(Duration.ofSeconds(1),
+                () -> coordenador.executarComDisponiveis(List.of(ids.get(0), ids.get(1)), livres -> livres));
+        assertEquals(List.of(ids.get(0)), recebidos);
+        assertDoesNotThrow(() -> CompletableFuture.runAsync(() -> coordenador.executar(List.of(ids.get(0)), () -> {
+        })).get());
+
+        liberar.countDown();
+        ocupante.get();
+    }
+
+    private static CoordenadorLocksProdutos criarCoordenador(int listras, Duration tempoMaximoEspera) {
+        return criarCoordenador(listras, tempoMaximoEspera, EstrategiaLock.PESSIMISTA_ESCRITA);
+    }
+
+    private static CoordenadorLocksProdutos criarCoordenador(int listras, Duration tempoMaximoEspera, EstrategiaLock estrategia) {
+        var lockProperties = new LockProperties();
+        lockProperties.setEstrategia(estrategia);
+        lockProperties.getCoordenador().setHabilitado(true);
+        lockProperties.getCoordenador().setListras(listras);
+        lockProperties.getCoordenador().setTempoMaximoEspera(tempoMaximoEspera);
+        return new CoordenadorLocksProdutos(lockProperties, new LockMetrics(new SimpleMeterRegistry()));
+    }
+}
@@ -0,0 +1,123 @@
+package br.com.ccs.locks;
+
+import br.com.ccs.ProdutosFixture;
+import br.com.ccs.entities.Produto;
+import br.com.ccs.metrics.LockMetrics;
+import br.com.ccs.repositories.ProdutoRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.inject.Inject;
+import jakarta.persistence.LockModeType;
+import org.hibernate.LockOptions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Contexto próprio, para que falhas de lock de outras classes de teste não consumam o
+ * intervalo mínimo entre capturas.
+ */
+@SpringBootTest(properties = {
+        "app.lock.diagnostico.intervalo-minimo=1h",
+        "app.lock.diagnostico.identificar-threads=true"})
+class DiagnosticoLocksTest {
+
+    @Inject
+    private DiagnosticoLocks diagnosticoLocks;
+    @Inject
+    private ProdutoRepository produtoRepository;
+    @Inject
+    private TransactionTemplate transactionTemplate;
+    @Inject
+    private MeterRegistry meterRegistry;
+
+    @AfterEach
+    void tearDown() {
+        produtoRepository.deleteAll();
+    }
+
+    /**
+     * Com uma thread segurando o lock de um produto e outra esperando por ele, o grafo deve ter
+     * a aresta da sessão que espera para a que segura, ambas com o nome das suas threads.
+     */
+    @Test
+    void testGrafoIdentificaQuemEsperaEQuemSeguraOLock() throws InterruptedException {
+        var produto = ProdutosFixture.salvar(produtoRepository, "Produto disputado");
+        var bloqueado = new CountDownLatch(1);
+        var liberar = new CountDownLatch(1);
+
+        var segura = Thread.ofPlatform().name("segura-lock").start(() -> transactionTemplate.executeWithoutResult(status -> {
+            bloquear(produto);
+            bloqueado.countDown();
+            aguardar(liberar);
+        }));
+        bloqueado.await();
+        var espera = Thread.ofPlatform().name("espera-lock").start(() -> transactionTemplate.executeWithoutResult(status -> bloquear(produto)));
+
+        try {
+            var grafo = aguardarEspera();
+
+            var aresta = grafo.bloqueadas().getFirst();
+            var bloqueadora = grafo.sessao(aresta.bloqueadaPor()).orElseThrow();
+            assertEquals("espera-lock", aresta.thread());
+            assertEquals("segura-lock", bloqueadora.thread());
+            assertTrue(bloqueadora.seguraLocks());
+            assertTrue(grafo.formatar().contains("[espera-lock] -> sessão " + bloqueadora.id() + " [segura-lock]"));
+        } finally {
+            liberar.countDown();
+            segura.join();
+            espera.join();
+        }
+    }
+
+    /**
+     * Uma rajada de falhas de lock dentro do intervalo mínimo dispara uma única captura;
+     * as demais são apenas contadas como descartadas.
+     */
+    @Test
+    void testRajadaDeFalhasDisparaUmaUnicaCaptura() {
+        var capturadosAntes = diagnosticos("capturado");
+        var descartadosAntes = diagnosticos("descartado");
+
+        for (var i = 0; i < 10; i++) {
+            diagnosticoLocks.registrarFalha(new CannotAcquireLockException("Timeout trying to lock table"));
+        }
+
+        assertEquals(capturadosAntes + 1, diagnosticos("capturado"));
+        assertEquals(descartadosAntes + 9, diagnosticos("descartado"));
+    }
+
+    private GrafoEsperaLocks aguardarEspera() throws InterruptedException {
+        for (var tentativa = 0; tentativa < 100; tentativa++) {
+            var grafo = diagnosticoLocks.capturar();
+            if (!grafo.bloqueadas().isEmpty()) {
+                return grafo;
+            }
+            Thread.sleep(20);
+        }
+        return fail("Nenhuma sessão esperando por lock foi encontrada");
+    }
+
+    private void bloquear(Produto produto) {
+        produtoRepository.findByIdIn(List.of(produto.getId()), LockModeType.PESSIMISTIC_WRITE, LockOptions.WAIT_FOREVER);
+    }
+
+    private double diagnosticos(String resultado) {
+        var contador = meterRegistry.find(LockMetrics.DIAGNOSTICOS).tag("resultado", resultado).counter();
+        return contador == null ? 0 : contador.count();
+    }
+
+    private static void aguardar(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
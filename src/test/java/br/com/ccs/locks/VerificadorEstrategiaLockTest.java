@@ -0,0 +1,28 @@
+package br.com.ccs.locks;
+
+import br.com.ccs.config.H2LockDialect;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class VerificadorEstrategiaLockTest {
+
+    @Test
+    void testEstrategiaCompartilhadaRecusadaQuandoLockLeituraIgualAoDeEscrita() {
+        assertThrows(IllegalStateException.class,
+                () -> VerificadorEstrategiaLock.verificar(EstrategiaLock.PESSIMISTA_LEITURA, new H2LockDialect()));
+    }
+
+    @Test
+    void testEstrategiaCompartilhadaAceitaComForShare() {
+        assertDoesNotThrow(() -> VerificadorEstrategiaLock.verificar(EstrategiaLock.PESSIMISTA_LEITURA, new PostgreSQLDialect()));
+    }
+
+    @Test
+    void testEstrategiasExclusivasAceitasSemLockCompartilhado() {
+        assertDoesNotThrow(() -> VerificadorEstrategiaLock.verificar(EstrategiaLock.PESSIMISTA_ESCRITA, new H2LockDialect()));
+        assertDoesNotThrow(() -> VerificadorEstrategiaLock.verificar(EstrategiaLock.OTIMISTA, new H2LockDialect()));
+    }
+}
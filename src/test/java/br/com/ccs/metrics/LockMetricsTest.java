@@ -0,0 +1,88 @@
+package br.com.ccs.metrics;
+
+import br.com.ccs.ProdutosFixture;
+import br.com.ccs.entities.Produto;
+import br.com.ccs.exceptions.PrecoVendaInvalidoException;
+import br.com.ccs.repositories.ProdutoRepository;
+import br.com.ccs.services.ProdutoService;
+import br.com.ccs.validators.PrecoMinimoVendaValidator;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+class LockMetricsTest {
+
+    @Inject
+    private MeterRegistry meterRegistry;
+    @Inject
+    private ProdutoRepository produtoRepository;
+    @Inject
+    private ProdutoService produtoService;
+    @Inject
+    private PrecoMinimoVendaValidator precoMinimoVendaValidator;
+    @Inject
+    private TransactionTemplate transactionTemplate;
+    private Produto produto;
+
+    @BeforeEach
+    void setUp() {
+        produto = ProdutosFixture.salvar(produtoRepository, "Coca-cola");
+    }
+
+    @AfterEach
+    void tearDown() {
+        produtoRepository.deleteAll();
+    }
+
+    @Test
+    void testRegistraEsperaERetencaoDoLock() {
+        var esperaAntes = contagem(LockMetrics.ESPERA_LOCK);
+        var retencaoAntes = contagem(LockMetrics.RETENCAO_LOCK);
+
+        transactionTemplate.executeWithoutResult(status -> precoMinimoVendaValidator.validarValorMinimoVenda(List.of(produto)));
+
+        assertEquals(esperaAntes + 1, contagem(LockMetrics.ESPERA_LOCK));
+        assertEquals(retencaoAntes + 1, contagem(LockMetrics.RETENCAO_LOCK));
+    }
+
+    @Test
+    void testContaPrecoVendaInvalido() {
+        var antes = excecoes(PrecoVendaInvalidoException.class);
+        produto.setValorCompra(BigDecimal.valueOf(150.00));
+        produto = produtoRepository.saveAndFlush(produto);
+
+        assertThrows(PrecoVendaInvalidoException.class, () -> transactionTemplate.executeWithoutResult(
+                status -> precoMinimoVendaValidator.validarValorMinimoVenda(List.of(produto))));
+        assertEquals(antes + 1, excecoes(PrecoVendaInvalidoException.class));
+    }
+
+    @Test
+    void testRegistraFlushPorLinhaNaAtualizacao() {
+        var antes = contagem(LockMetrics.FLUSH_ATUALIZACAO);
+
+        produtoService.atualizarValorCompraProdutos(BigDecimal.valueOf(90.00));
+
+        assertEquals(antes + produtoRepository.count(), contagem(LockMetrics.FLUSH_ATUALIZACAO));
+    }
+
+    private long contagem(String nome) {
+        return meterRegistry.find(nome).timers().stream().mapToLong(Timer::count).sum();
+    }
+
+    private double excecoes(Class<? extends Exception> excecao) {
+        var counter = meterRegistry.find(LockMetrics.EXCECOES).tag("excecao", excecao.getSimpleName()).counter();
+        return counter == null ? 0 : counter.count();
+    }
+}
@@ -0,0 +1,99 @@
+package br.com.ccs.repositories;
+
+import br.com.ccs.ProdutosFixture;
+import br.com.ccs.App;
+import br.com.ccs.entities.Produto;
+import jakarta.persistence.LockModeType;
+import org.hibernate.LockOptions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mede a busca com lock de {@code tamanho} produtos por ID, em um catálogo de
+ * {@link #TAMANHO_CATALOGO} produtos.
+ * <p>
+ * Com {@code tamanhoMaximoListaIn} em 0 toda busca usa o parâmetro de array; com um valor
+ * acima de {@code tamanho}, toda busca usa o {@code IN} completado até a potência de 2.
+ * {@code lockModeType} separa o custo da busca do custo de bloquear as linhas, que no H2
+ * domina a partir de alguns milhares de produtos.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BuscaProdutosPorIdsBenchmark {
+
+    private static final int TAMANHO_CATALOGO = 50_000;
+
+    @Param({"5", "1000", "50000"})
+    private int tamanho;
+    @Param({"0", "65536"})
+    private int tamanhoMaximoListaIn;
+    @Param({"NONE", "PESSIMISTIC_WRITE"})
+    private LockModeType lockModeType;
+
+    private ConfigurableApplicationContext context;
+    private ProdutoRepository produtoRepository;
+    private TransactionTemplate transactionTemplate;
+    private List<UUID> catalogo;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(App.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                .run("--app.produtos.consulta.tamanho-maximo-lista-in=" + tamanhoMaximoListaIn,
+                        "--logging.level.root=WARN",
+                        "--spring.datasource.url=jdbc:h2:mem:benchmark-" + UUID.randomUUID());
+        produtoRepository = context.getBean(ProdutoRepository.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+
+        catalogo = ProdutosFixture.salvar(produtoRepository, TAMANHO_CATALOGO).stream().map(Produto::getId).toList();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Pedido {
+        private List<UUID> ids;
+
+        @Setup(Level.Invocation)
+        public void sortear(BuscaProdutosPorIdsBenchmark benchmark) {
+            var embaralhados = new ArrayList<>(benchmark.catalogo);
+            Collections.shuffle(embaralhados);
+            ids = embaralhados.subList(0, benchmark.tamanho).stream().sorted().toList();
+        }
+    }
+
+    @Benchmark
+    public List<Produto> findByIdIn(Pedido pedido) {
+        return transactionTemplate.execute(status ->
+                produtoRepository.findByIdIn(pedido.ids, lockModeType, LockOptions.WAIT_FOREVER));
+    }
+}
@@ -0,0 +1,95 @@
+package br.com.ccs.repositories;
+
+import br.com.ccs.ProdutosFixture;
+import br.com.ccs.entities.Produto;
+import jakarta.inject.Inject;
+import jakarta.persistence.LockModeType;
+import org.hibernate.LockOptions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Com o limite do {@code IN} em 4, as buscas por mais IDs usam o parâmetro de array.
+ */
+@SpringBootTest(properties = "app.produtos.consulta.tamanho-maximo-lista-in=4")
+class ProdutoRepositoryBuscaPorIdsTest {
+
+    @Inject
+    private ProdutoRepository produtoRepository;
+    @Inject
+    private TransactionTemplate transactionTemplate;
+    private List<Produto> produtos;
+
+    @BeforeEach
+    void setUp() {
+        produtos = ProdutosFixture.salvar(produtoRepository, 10);
+    }
+
+    @AfterEach
+    void tearDown() {
+        produtoRepository.deleteAll();
+    }
+
+    @Test
+    void testListaAcimaDoLimiteBuscaPorArrayOrdenadoPorId() {
+        var ids = new ArrayList<>(produtos.stream().map(Produto::getId).toList());
+        ids.add(UUID.randomUUID());
+
+        var encontrados = transactionTemplate.execute(status ->
+                produtoRepository.findByIdIn(ids, LockModeType.PESSIMISTIC_WRITE, LockOptions.NO_WAIT));
+        var custos = produtoRepository.findCustosByIdIn(ids);
+
+        assertEquals(produtos.stream().map(Produto::getId).sorted().toList(),
+                encontrados.stream().map(Produto::getId).toList());
+        assertEquals(10, custos.size());
+        assertTrue(custos.stream().allMatch(custo -> custo.valorCompra().compareTo(BigDecimal.valueOf(100)) == 0));
+    }
+
+    /**
+     * Os produtos bloqueados pela busca por array ficam bloqueados até o fim da transação,
+     * como na busca por {@code IN}.
+     */
+    @Test
+    void testListaAcimaDoLimiteMantemOLock() {
+        var ids = produtos.stream().map(Produto::getId).sorted(Comparator.naturalOrder()).toList();
+        var bloqueado = new CountDownLatch(1);
+        var liberar = new CountDownLatch(1);
+
+        var segura = CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(status -> {
+            produtoRepository.findByIdIn(ids, LockModeType.PESSIMISTIC_WRITE, LockOptions.WAIT_FOREVER);
+            bloqueado.countDown();
+            aguardar(liberar);
+        }));
+
+        try {
+            aguardar(bloqueado);
+            assertThrows(PessimisticLockingFailureException.class, () -> transactionTemplate.executeWithoutResult(status ->
+                    produtoRepository.findByIdIn(List.of(ids.getLast()), LockModeType.PESSIMISTIC_WRITE, LockOptions.NO_WAIT)));
+        } finally {
+            liberar.countDown();
+            segura.join();
+        }
+    }
+
+    private static void aguardar(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package br.com.ccs.services;
+
+import br.com.ccs.ProdutosFixture;
+import br.com.ccs.entities.ItemPedido;
+import br.com.ccs.entities.Pedido;
+import br.com.ccs.entities.Produto;
+import br.com.ccs.repositories.PedidoRepository;
+import br.com.ccs.repositories.ProdutoRepository;
+import br.com.ccs.services.dto.ResultadoPedido;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Centenas de pedidos submetidos de uma vez sobre os mesmos produtos, com um pool de apenas
+ * 4 conexões e 1 segundo de espera por conexão: sem admissão, boa parte falharia esperando o
+ * pool; com ela, o excedente espera na fila do limitador e todos são gravados.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.hikari.maximum-pool-size=4",
+        "spring.datasource.hikari.connection-timeout=1000",
+        "app.pedidos.admissao.tempo-maximo-fila=30s"})
+class AdmissaoPedidosTest {
+
+    private static final int QUANTIDADE_PEDIDOS = 300;
+
+    @Inject
+    private AdmissaoPedidos admissaoPedidos;
+    @Inject
+    private ProdutoRepository produtoRepository;
+    @Inject
+    private PedidoRepository pedidoRepository;
+    @Inject
+    private MeterRegistry meterRegistry;
+    private List<Produto> produtos;
+
+    @BeforeEach
+    void setUp() {
+        produtos = ProdutosFixture.salvar(produtoRepository, 3);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pedidoRepository.deleteAll();
+        produtoRepository.deleteAll();
+    }
+
+    @Test
+    void testPedidosAlemDoPoolSaoAdmitidosSemEsgotarConexoes() {
+        var resultados = new ArrayList<CompletableFuture<ResultadoPedido>>();
+        for (var i = 0; i < QUANTIDADE_PEDIDOS; i++) {
+            resultados.add(admissaoPedidos.submeter(criarPedido()));
+        }
+
+        CompletableFuture.allOf(resultados.toArray(CompletableFuture[]::new)).join();
+
+        assertTrue(resultados.stream().allMatch(resultado -> resultado.join().gravado()));
+        assertEquals(QUANTIDADE_PEDIDOS, pedidoRepository.count());
+        assertEquals(0, meterRegistry.get("pedidos.admissao.rejeitados").functionCounter().count());
+        assertTrue(meterRegistry.get("pedidos.admissao.limite").gauge().value() <= 4);
+    }
+
+    private Pedido criarPedido() {
+        var pedido = Pedido.builder().build();
+        pedido.setItens(produtos.stream()
+                .map(produto -> ItemPedido.builder()
+                        .produto(produto)
+                        .quantidade(1)
+                        .pedido(pedido)
+                        .build())
+                .toList());
+        return pedido;
+    }
+}
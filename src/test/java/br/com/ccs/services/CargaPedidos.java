@@ -0,0 +1,197 @@
+package br.com.ccs.services;
+
+import br.com.ccs.entities.ItemPedido;
+import br.com.ccs.entities.Pedido;
+import br.com.ccs.entities.Produto;
+import br.com.ccs.exceptions.PrecoVendaInvalidoException;
+import br.com.ccs.exceptions.RepositoryException;
+import br.com.ccs.metrics.LockMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.ConcurrencyFailureException;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Gerador de carga que reproduz, em escala, os cenários de concorrência do {@link PedidoServiceTest}:
+ * milhares de {@link PedidoService#save(Pedido)} simultâneos em virtual threads, intercalados com
+ * execuções de {@link ProdutoService#atualizarValorCompraProdutos(BigDecimal)}.
+ */
+@Slf4j
+@RequiredArgsConstructor
+class CargaPedidos {
+
+    private final PedidoService pedidoService;
+    private final ProdutoService produtoService;
+    private final MeterRegistry meterRegistry;
+
+    record Configuracao(int totalPedidos,
+                        int concorrencia,
+                        int itensMinimos,
+                        int itensMaximos,
+                        double expoenteZipf,
+                        Duration intervaloAtualizacoes) {
+
+        static Configuracao doSistema() {
+            return new Configuracao(
+                    Integer.getInteger("carga.pedidos", 500),
+                    Integer.getInteger("carga.concorrencia", 200),
+                    Integer.getInteger("carga.itens-minimos", 1),
+                    Integer.getInteger("carga.itens-maximos", 10),
+                    Double.parseDouble(System.getProperty("carga.zipf", "1.1")),
+                    Duration.ofMillis(Long.getLong("carga.intervalo-atualizacoes-ms", 200)));
+        }
+    }
+
+    record Relatorio(int pedidos,
+                     long gravados,
+                     long rejeitados,
+                     long falhasLock,
+                     long outrasFalhas,
+                     long retentativas,
+                     long atualizacoes,
+                     double pedidosPorSegundo,
+                     Duration p50,
+                     Duration p99,
+                     Duration p999) {
+
+        @Override
+        public String toString() {
+            return String.format("""
+
+                    Pedidos: %d (gravados %d, rejeitados %d, falhas de lock %d, outras falhas %d)
+                    Retentativas: %d  Atualizações de valor de compra: %d
+                    Vazão: %.1f pedidos/s  Latência p50 %d ms, p99 %d ms, p999 %d ms""",
+                    pedidos, gravados, rejeitados, falhasLock, outrasFalhas, retentativas, atualizacoes,
+                    pedidosPorSegundo, p50.toMillis(), p99.toMillis(), p999.toMillis());
+        }
+    }
+
+    Relatorio executar(List<Produto> catalogo, Configuracao configuracao) {
+        var zipf = new DistribuicaoZipf(catalogo.size(), configuracao.expoenteZipf());
+        var latencias = new long[configuracao.totalPedidos()];
+        var gravados = new LongAdder();
+        var rejeitados = new LongAdder();
+        var falhasLock = new LongAdder();
+        var outrasFalhas = new LongAdder();
+        var atualizacoes = new AtomicInteger();
+        var emAndamento = new AtomicBoolean(true);
+        var permissoes = new Semaphore(configuracao.concorrencia());
+        var retentativasAntes = retentativas();
+        var valorCompra = catalogo.getFirst().getValorCompra();
+
+        var inicio = System.nanoTime();
+        Future<?> atualizador;
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            atualizador = executor.submit(() -> {
+                while (emAndamento.get()) {
+                    produtoService.atualizarValorCompraProdutos(valorCompra);
+                    atualizacoes.incrementAndGet();
+                    Thread.sleep(configuracao.intervaloAtualizacoes());
+                }
+                return null;
+            });
+
+            for (var i = 0; i < configuracao.totalPedidos(); i++) {
+                var indice = i;
+                var pedido = criarPedido(catalogo, zipf, configuracao);
+                permissoes.acquireUninterruptibly();
+                executor.submit(() -> {
+                    var inicioPedido = System.nanoTime();
+                    try {
+                        pedidoService.save(pedido);
+                        gravados.increment();
+                    } catch (PrecoVendaInvalidoException e) {
+                        rejeitados.increment();
+                    } catch (RepositoryException | ConcurrencyFailureException e) {
+                        falhasLock.increment();
+                    } catch (RuntimeException e) {
+                        log.warn("\nFalha inesperada na carga de pedidos", e);
+                        outrasFalhas.increment();
+                    } finally {
+                        latencias[indice] = System.nanoTime() - inicioPedido;
+                        permissoes.release();
+                    }
+                });
+            }
+
+            permissoes.acquireUninterruptibly(configuracao.concorrencia());
+            emAndamento.set(false);
+        }
+        var duracao = Duration.ofNanos(System.nanoTime() - inicio);
+        verificarAtualizador(atualizador);
+
+        Arrays.sort(latencias);
+        return new Relatorio(
+                configuracao.totalPedidos(),
+                gravados.sum(),
+                rejeitados.sum(),
+                falhasLock.sum(),
+                outrasFalhas.sum(),
+                (long) (retentativas() - retentativasAntes),
+                atualizacoes.get(),
+                configuracao.totalPedidos() / (duracao.toNanos() / 1e9),
+                percentil(latencias, 0.50),
+                percentil(latencias, 0.99),
+                percentil(latencias, 0.999));
+    }
+
+    /**
+     * Sem o atualizador, os pedidos teriam rodado sem a contenção configurada e o relatório
+     * não representaria o cenário; a carga falha em vez de devolvê-lo.
+     */
+    private static void verificarAtualizador(Future<?> atualizador) {
+        try {
+            atualizador.get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("O atualizador do valor de compra parou durante a carga", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrompido aguardando o atualizador do valor de compra", e);
+        }
+    }
+
+    private static Duration percentil(long[] latenciasOrdenadas, double percentil) {
+        var indice = (int) Math.ceil(percentil * latenciasOrdenadas.length) - 1;
+        return Duration.ofNanos(latenciasOrdenadas[Math.max(indice, 0)]);
+    }
+
+    private double retentativas() {
+        return meterRegistry.find(LockMetrics.RETENTATIVAS).counters().stream()
+                .mapToDouble(Counter::count)
+                .sum();
+    }
+
+    private static Pedido criarPedido(List<Produto> catalogo, DistribuicaoZipf zipf, Configuracao configuracao) {
+        var quantidadeItens = ThreadLocalRandom.current()
+                .nextInt(configuracao.itensMinimos(), configuracao.itensMaximos() + 1);
+        var produtos = new LinkedHashSet<Produto>();
+        while (produtos.size() < Math.min(quantidadeItens, catalogo.size())) {
+            produtos.add(catalogo.get(zipf.proximo()));
+        }
+
+        var pedido = Pedido.builder().build();
+        pedido.setItens(produtos.stream()
+                .map(produto -> ItemPedido.builder()
+                        .produto(produto)
+                        .quantidade(1)
+                        .pedido(pedido)
+                        .build())
+                .toList());
+        return pedido;
+    }
+}
@@ -0,0 +1,56 @@
+package br.com.ccs.services;
+
+import br.com.ccs.ProdutosFixture;
+import br.com.ccs.repositories.PedidoRepository;
+import br.com.ccs.repositories.ProdutoRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.inject.Inject;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Executa o {@link CargaPedidos} contra o H2 embarcado.
+ * <p>
+ * Por padrão a carga é pequena o suficiente para rodar junto com os demais testes; para
+ * reproduzir um padrão de produção basta aumentá-la, por exemplo:
+ * {@code mvn test -Dtest=CargaPedidosTest -Dcarga.pedidos=100000 -Dcarga.concorrencia=5000}.
+ * A estratégia de lock pode ser trocada com {@code -Dapp.lock.estrategia=OTIMISTA}.
+ */
+@SpringBootTest(properties = "logging.level.br.com.ccs=WARN")
+@Slf4j
+class CargaPedidosTest {
+
+    @Inject
+    private PedidoService pedidoService;
+    @Inject
+    private ProdutoService produtoService;
+    @Inject
+    private ProdutoRepository produtoRepository;
+    @Inject
+    private PedidoRepository pedidoRepository;
+    @Inject
+    private MeterRegistry meterRegistry;
+
+    @AfterEach
+    void tearDown() {
+        pedidoRepository.deleteAll();
+        produtoRepository.deleteAll();
+    }
+
+    @Test
+    void testCargaPedidosComAtualizacoesIntercaladas() {
+        var catalogo = ProdutosFixture.salvar(produtoRepository, Integer.getInteger("carga.catalogo", 200));
+
+        var configuracao = CargaPedidos.Configuracao.doSistema();
+        var relatorio = new CargaPedidos(pedidoService, produtoService, meterRegistry).executar(catalogo, configuracao);
+
+        log.warn("\nResultado da carga de pedidos: {}", relatorio);
+        assertEquals(configuracao.totalPedidos(), relatorio.gravados() + relatorio.rejeitados()
+                + relatorio.falhasLock() + relatorio.outrasFalhas());
+        assertEquals(0, relatorio.outrasFalhas());
+    }
+}
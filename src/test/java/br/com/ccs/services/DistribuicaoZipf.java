@@ -0,0 +1,30 @@
+package br.com.ccs.services;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Sorteia índices em {@code [0, n)} com probabilidade proporcional a {@code 1 / (i + 1)^expoente},
+ * simulando a popularidade dos produtos: poucos muito vendidos e uma cauda longa.
+ */
+final class DistribuicaoZipf {
+
+    private final double[] acumulada;
+
+    DistribuicaoZipf(int n, double expoente) {
+        acumulada = new double[n];
+        var soma = 0D;
+        for (var i = 0; i < n; i++) {
+            soma += 1D / Math.pow(i + 1, expoente);
+            acumulada[i] = soma;
+        }
+        for (var i = 0; i < n; i++) {
+            acumulada[i] /= soma;
+        }
+    }
+
+    int proximo() {
+        var indice = Arrays.binarySearch(acumulada, ThreadLocalRandom.current().nextDouble());
+        return Math.min(indice >= 0 ? indice : -indice - 1, acumulada.length - 1);
+    }
+}
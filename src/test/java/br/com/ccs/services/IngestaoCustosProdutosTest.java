@@ -0,0 +1,191 @@
+package br.com.ccs.services;
+
+import br.com.ccs.ProdutosFixture;
+import br.com.ccs.entities.Produto;
+import br.com.ccs.exceptions.SobrecargaException;
+import br.com.ccs.locks.CoordenadorLocksProdutos;
+import br.com.ccs.repositories.ProdutoRepository;
+import br.com.ccs.services.dto.AtualizacaoCusto;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.inject.Inject;
+import jakarta.persistence.LockModeType;
+import org.hibernate.LockOptions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Janela de uma hora, para que só as aplicações disparadas pelo teste, ou antecipadas pela
+ * fila cheia, gravem os valores.
+ */
+@SpringBootTest(properties = {
+        "app.lock.coordenador.habilitado=true",
+        "app.produtos.ingestao-custos.janela=1h",
+        "app.produtos.ingestao-custos.capacidade=2",
+        "app.produtos.ingestao-custos.tempo-maximo-espera=500ms"})
+class IngestaoCustosProdutosTest {
+
+    @Inject
+    private IngestaoCustosProdutos ingestaoCustosProdutos;
+    @Inject
+    private ProdutoRepository produtoRepository;
+    @Inject
+    private CoordenadorLocksProdutos coordenadorLocksProdutos;
+    @Inject
+    private TransactionTemplate transactionTemplate;
+    @Inject
+    private MeterRegistry meterRegistry;
+    private List<Produto> produtos;
+
+    @BeforeEach
+    void setUp() {
+        produtos = ProdutosFixture.salvar(produtoRepository, 5);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ingestaoCustosProdutos.descarregar();
+        produtoRepository.deleteAll();
+    }
+
+    /**
+     * Atualizações repetidas do mesmo produto ocupam uma única posição na fila e só a
+     * última é gravada.
+     */
+    @Test
+    void testAtualizacoesDoMesmoProdutoSaoCombinadas() {
+        var primeiro = produtos.get(0).getId();
+        var segundo = produtos.get(1).getId();
+
+        ingestaoCustosProdutos.enfileirar(Stream.of(
+                new AtualizacaoCusto(primeiro, BigDecimal.valueOf(90.00)),
+                new AtualizacaoCusto(segundo, BigDecimal.valueOf(80.00)),
+                new AtualizacaoCusto(primeiro, BigDecimal.valueOf(70.00))));
+
+        assertEquals(2, ingestaoCustosProdutos.pendentes());
+        assertEquals(2, ingestaoCustosProdutos.descarregar());
+        assertEquals(0, valorCompra(primeiro).compareTo(BigDecimal.valueOf(70.00)));
+        assertEquals(0, valorCompra(segundo).compareTo(BigDecimal.valueOf(80.00)));
+    }
+
+    /**
+     * O produto bloqueado por outra transação não é esperado: volta para a fila e é gravado,
+     * com o valor mais recente, na primeira aplicação depois de liberado.
+     */
+    @Test
+    void testProdutoBloqueadoEAdiadoSemPerderValorMaisRecente() throws InterruptedException {
+        var bloqueado = produtos.get(0).getId();
+        var livre = produtos.get(1).getId();
+        var lockObtido = new CountDownLatch(1);
+        var liberar = new CountDownLatch(1);
+
+        var segura = Thread.ofPlatform().start(() -> transactionTemplate.executeWithoutResult(status -> {
+            produtoRepository.findByIdIn(List.of(bloqueado), LockModeType.PESSIMISTIC_WRITE, LockOptions.WAIT_FOREVER);
+            lockObtido.countDown();
+            aguardar(liberar);
+        }));
+        lockObtido.await();
+
+        try {
+            ingestaoCustosProdutos.enfileirar(Map.of(
+                    bloqueado, BigDecimal.valueOf(90.00),
+                    livre, BigDecimal.valueOf(80.00)));
+
+            assertEquals(1, ingestaoCustosProdutos.descarregar());
+            assertEquals(1, ingestaoCustosProdutos.pendentes());
+            assertEquals(0, valorCompra(bloqueado).compareTo(BigDecimal.valueOf(100.00)));
+
+            ingestaoCustosProdutos.enfileirar(bloqueado, BigDecimal.valueOf(60.00));
+        } finally {
+            liberar.countDown();
+            segura.join();
+        }
+
+        assertEquals(1, ingestaoCustosProdutos.descarregar());
+        assertEquals(0, ingestaoCustosProdutos.pendentes());
+        assertEquals(0, valorCompra(bloqueado).compareTo(BigDecimal.valueOf(60.00)));
+    }
+
+    /**
+     * A aplicação não espera pelas listras ocupadas do coordenador: os produtos voltam para a
+     * fila e continuam ocupando espaço nela, então quem enfileira um novo produto espera pelo
+     * tempo máximo e é rejeitado. O que já estava na fila é gravado assim que as listras são
+     * liberadas.
+     */
+    @Test
+    void testFilaCheiaRejeitaAposTempoMaximoEspera() throws InterruptedException {
+        var rejeitadosAntes = meterRegistry.get("produtos.custos.rejeitados").functionCounter().count();
+        var coordenadorOcupado = new CountDownLatch(1);
+        var liberar = new CountDownLatch(1);
+
+        var segura = Thread.ofPlatform().start(() -> coordenadorLocksProdutos.executarComTodas(() -> {
+            coordenadorOcupado.countDown();
+            aguardar(liberar);
+        }));
+        coordenadorOcupado.await();
+
+        try {
+            ingestaoCustosProdutos.enfileirar(produtos.get(0).getId(), BigDecimal.valueOf(50.00));
+            ingestaoCustosProdutos.enfileirar(produtos.get(1).getId(), BigDecimal.valueOf(50.00));
+
+            assertEquals(0, ingestaoCustosProdutos.descarregar());
+            assertEquals(2, ingestaoCustosProdutos.pendentes());
+
+            var terceiro = produtos.get(2).getId();
+            assertThrows(SobrecargaException.class,
+                    () -> ingestaoCustosProdutos.enfileirar(terceiro, BigDecimal.valueOf(50.00)));
+            assertEquals(rejeitadosAntes + 1, meterRegistry.get("produtos.custos.rejeitados").functionCounter().count());
+        } finally {
+            liberar.countDown();
+            segura.join();
+        }
+
+        ingestaoCustosProdutos.descarregar();
+        assertEquals(0, ingestaoCustosProdutos.pendentes());
+        assertEquals(0, valorCompra(produtos.get(0).getId()).compareTo(BigDecimal.valueOf(50.00)));
+        assertEquals(0, valorCompra(produtos.get(1).getId()).compareTo(BigDecimal.valueOf(50.00)));
+        assertEquals(0, valorCompra(produtos.get(2).getId()).compareTo(BigDecimal.valueOf(100.00)));
+    }
+
+    /**
+     * Um valor que o banco nunca aceitará é isolado dividindo o lote e descartado, sem voltar
+     * para a fila e sem impedir a gravação dos demais produtos do lote.
+     */
+    @Test
+    void testValorRecusadoPeloBancoDescartadoSemAfetarDemais() {
+        var descartadosAntes = meterRegistry.get("produtos.custos.descartados").functionCounter().count();
+        var recusado = produtos.get(1).getId();
+
+        ingestaoCustosProdutos.enfileirar(produtos.get(0).getId(), BigDecimal.valueOf(90.00));
+        ingestaoCustosProdutos.enfileirar(recusado, new BigDecimal("1E40"));
+
+        assertEquals(1, ingestaoCustosProdutos.descarregar());
+        assertEquals(0, ingestaoCustosProdutos.pendentes());
+        assertEquals(descartadosAntes + 1, meterRegistry.get("produtos.custos.descartados").functionCounter().count());
+        assertEquals(0, valorCompra(produtos.get(0).getId()).compareTo(BigDecimal.valueOf(90.00)));
+        assertEquals(0, valorCompra(recusado).compareTo(BigDecimal.valueOf(100.00)));
+    }
+
+    private BigDecimal valorCompra(UUID id) {
+        return produtoRepository.findById(id).orElseThrow().getValorCompra();
+    }
+
+    private static void aguardar(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
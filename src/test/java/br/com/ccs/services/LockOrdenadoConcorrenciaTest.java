@@ -0,0 +1,133 @@
+package br.com.ccs.services;
+
+import br.com.ccs.ProdutosFixture;
+import br.com.ccs.entities.ItemPedido;
+import br.com.ccs.entities.Pedido;
+import br.com.ccs.entities.Produto;
+import br.com.ccs.locks.OrdemCanonicaIds;
+import br.com.ccs.repositories.PedidoRepository;
+import br.com.ccs.repositories.ProdutoRepository;
+import jakarta.inject.Inject;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = "app.produtos.atualizacao.tamanho-lote=5")
+@Slf4j
+class LockOrdenadoConcorrenciaTest {
+
+    private static final int QUANTIDADE_PRODUTOS = 20;
+    private static final int QUANTIDADE_THREADS = 16;
+    private static final int PEDIDOS_POR_THREAD = 10;
+    private static final int ITENS_POR_PEDIDO = 10;
+
+    @Inject
+    private PedidoService pedidoService;
+    @Inject
+    private ProdutoService produtoService;
+    @Inject
+    private ProdutoRepository produtoRepository;
+    @Inject
+    private PedidoRepository pedidoRepository;
+    private List<Produto> produtos;
+
+    @BeforeEach
+    void setUp() {
+        produtos = ProdutosFixture.salvar(produtoRepository, QUANTIDADE_PRODUTOS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pedidoRepository.deleteAll();
+        produtoRepository.deleteAll();
+    }
+
+    @Test
+    void testOrdemCanonicaIgualAoIndiceDoBanco() {
+        var idsBanco = produtoRepository.findAll(Sort.by("id")).stream().map(Produto::getId).toList();
+
+        assertEquals(idsBanco, OrdemCanonicaIds.ordenar(produtos.stream().map(Produto::getId).toList()));
+    }
+
+    /**
+     * Neste cenário várias threads gravam pedidos que compartilham os mesmos
+     * produtos, cada um com os itens em uma ordem aleatória, enquanto duas
+     * atualizações de valor de compra percorrem o catálogo inteiro.
+     * <p>
+     * Como todos os fluxos bloqueiam os produtos na ordem canônica dos IDs,
+     * nenhuma transação pode entrar em deadlock, então nenhuma operação deve falhar.
+     */
+    @Test
+    void testSemDeadlockComPedidosEAtualizacoesSobrepostos() {
+        var falhas = new ConcurrentLinkedQueue<Throwable>();
+        var valorCompra = BigDecimal.valueOf(100.00).setScale(2, RoundingMode.HALF_EVEN);
+
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            var futures = new ArrayList<CompletableFuture<Void>>();
+
+            IntStream.range(0, QUANTIDADE_THREADS).forEach(thread -> futures.add(CompletableFuture.runAsync(() -> {
+                var random = new Random(thread);
+                for (var i = 0; i < PEDIDOS_POR_THREAD; i++) {
+                    executar(() -> pedidoService.save(criarPedido(random)), falhas);
+                }
+            }, executor)));
+
+            futures.add(CompletableFuture.runAsync(
+                    () -> executar(() -> produtoService.atualizarValorCompraProdutos(valorCompra), falhas), executor));
+            futures.add(CompletableFuture.runAsync(
+                    () -> executar(() -> produtoService.atualizarValorCompraProdutosEmLotes(valorCompra), falhas), executor));
+
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+        }
+
+        falhas.forEach(falha -> log.error("\nFalha durante o teste de concorrência", falha));
+        assertTrue(falhas.isEmpty(), "Operações falharam por lock: " + falhas.size());
+        assertEquals(QUANTIDADE_THREADS * PEDIDOS_POR_THREAD, pedidoRepository.count());
+    }
+
+    private static void executar(Runnable operacao, ConcurrentLinkedQueue<Throwable> falhas) {
+        try {
+            operacao.run();
+        } catch (RuntimeException e) {
+            falhas.add(e);
+        }
+    }
+
+    private Pedido criarPedido(Random random) {
+        var pedido = Pedido.builder()
+                .id(UUID.randomUUID())
+                .build();
+
+        var produtosPedido = new ArrayList<>(produtos);
+        Collections.shuffle(produtosPedido, random);
+
+        pedido.setItens(produtosPedido.subList(0, ITENS_POR_PEDIDO).stream()
+                .map(produto -> ItemPedido.builder()
+                        .id(UUID.randomUUID())
+                        .produto(produto)
+                        .quantidade(1)
+                        .pedido(pedido)
+                        .build())
+                .toList());
+
+        return pedido;
+    }
+}
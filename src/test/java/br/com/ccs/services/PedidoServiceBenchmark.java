@@ -0,0 +1,142 @@
+package br.com.ccs.services;
+
+import br.com.ccs.ProdutosFixture;
+import br.com.ccs.App;
+import br.com.ccs.entities.ItemPedido;
+import br.com.ccs.entities.Pedido;
+import br.com.ccs.entities.Produto;
+import br.com.ccs.locks.EstrategiaLock;
+import br.com.ccs.repositories.ProdutoRepository;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Mede a gravação de pedidos pelo {@link PedidoService#save(Pedido)} contra o H2 em memória
+ * para cada {@link EstrategiaLock} de aquisição dos produtos.
+ * <p>
+ * Cada operação grava {@code threads} pedidos simultâneos em virtual threads, então a vazão
+ * em pedidos/s é a vazão reportada multiplicada por {@code threads}. {@code skew} é a
+ * probabilidade de cada item ser um dos {@link #PRODUTOS_QUENTES} produtos mais vendidos.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PedidoServiceBenchmark {
+
+    private static final int TAMANHO_CATALOGO = 1_000;
+    private static final int PRODUTOS_QUENTES = 10;
+
+    @Param({"PESSIMISTA_ESCRITA", "OTIMISTA", "PESSIMISTA_NOWAIT"})
+    private EstrategiaLock estrategia;
+    @Param({"1", "10", "100"})
+    private int itensPorPedido;
+    @Param({"1", "8", "32"})
+    private int threads;
+    @Param({"0.0", "0.9"})
+    private double skew;
+
+    private ConfigurableApplicationContext context;
+    private PedidoService pedidoService;
+    private ExecutorService executor;
+    private List<Produto> catalogo;
+    private final AtomicLong sucessos = new AtomicLong();
+    private final AtomicLong falhas = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(App.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                .run("--app.lock.estrategia=" + estrategia,
+                        "--logging.level.root=WARN",
+                        "--spring.datasource.url=jdbc:h2:mem:benchmark-" + UUID.randomUUID());
+        pedidoService = context.getBean(PedidoService.class);
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+
+        catalogo = ProdutosFixture.salvar(context.getBean(ProdutoRepository.class), TAMANHO_CATALOGO);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.close();
+        context.close();
+    }
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Resultado {
+        public long pedidosGravados;
+        public long pedidosComFalha;
+    }
+
+    @Benchmark
+    public void save(Resultado resultado) {
+        var futures = new CompletableFuture[threads];
+        for (var i = 0; i < threads; i++) {
+            var pedido = criarPedido();
+            futures[i] = CompletableFuture.runAsync(() -> gravar(pedido), executor);
+        }
+        CompletableFuture.allOf(futures).join();
+
+        resultado.pedidosGravados += sucessos.getAndSet(0);
+        resultado.pedidosComFalha += falhas.getAndSet(0);
+    }
+
+    private void gravar(Pedido pedido) {
+        try {
+            pedidoService.save(pedido);
+            sucessos.incrementAndGet();
+        } catch (RuntimeException e) {
+            falhas.incrementAndGet();
+        }
+    }
+
+    private Pedido criarPedido() {
+        var random = ThreadLocalRandom.current();
+        var produtos = new LinkedHashSet<Produto>();
+        while (produtos.size() < itensPorPedido) {
+            var indice = random.nextDouble() < skew
+                    ? random.nextInt(PRODUTOS_QUENTES)
+                    : random.nextInt(TAMANHO_CATALOGO);
+            produtos.add(catalogo.get(indice));
+        }
+
+        var pedido = Pedido.builder().build();
+        pedido.setItens(produtos.stream()
+                .map(produto -> ItemPedido.builder()
+                        .produto(produto)
+                        .quantidade(1)
+                        .pedido(pedido)
+                        .build())
+                .toList());
+        return pedido;
+    }
+}
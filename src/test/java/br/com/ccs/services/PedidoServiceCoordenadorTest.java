@@ -0,0 +1,95 @@
+package br.com.ccs.services;
+
+import br.com.ccs.ProdutosFixture;
+import br.com.ccs.entities.ItemPedido;
+import br.com.ccs.entities.Pedido;
+import br.com.ccs.entities.Produto;
+import br.com.ccs.metrics.LockMetrics;
+import br.com.ccs.repositories.PedidoRepository;
+import br.com.ccs.repositories.ProdutoRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Com o coordenador local habilitado e um pool de apenas 4 conexões, dezenas de pedidos
+ * disputando os mesmos produtos, junto com as atualizações do catálogo, devem ser gravados
+ * sem esgotar o pool: só quem venceu a disputa local pede uma conexão.
+ */
+@SpringBootTest(properties = {
+        "app.lock.coordenador.habilitado=true",
+        "spring.datasource.hikari.maximum-pool-size=4",
+        "spring.datasource.hikari.connection-timeout=1000"})
+class PedidoServiceCoordenadorTest {
+
+    private static final int QUANTIDADE_PEDIDOS = 64;
+
+    @Inject
+    private PedidoService pedidoService;
+    @Inject
+    private ProdutoService produtoService;
+    @Inject
+    private ProdutoRepository produtoRepository;
+    @Inject
+    private PedidoRepository pedidoRepository;
+    @Inject
+    private MeterRegistry meterRegistry;
+    private List<Produto> produtos;
+
+    @BeforeEach
+    void setUp() {
+        produtos = ProdutosFixture.salvar(produtoRepository, 3);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pedidoRepository.deleteAll();
+        produtoRepository.deleteAll();
+    }
+
+    @Test
+    void testPedidosConcorrentesNosMesmosProdutosComPoolPequeno() {
+        var futures = new ArrayList<CompletableFuture<Void>>();
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (var i = 0; i < QUANTIDADE_PEDIDOS; i++) {
+                var pedido = criarPedido();
+                futures.add(CompletableFuture.runAsync(() -> pedidoService.save(pedido), executor));
+            }
+            futures.add(CompletableFuture.runAsync(
+                    () -> produtoService.atualizarValorCompraProdutos(BigDecimal.valueOf(100.00)), executor));
+            futures.add(CompletableFuture.runAsync(
+                    () -> produtoService.atualizarValorCompraProdutosEmLotes(BigDecimal.valueOf(100.00)), executor));
+
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+        }
+
+        assertEquals(QUANTIDADE_PEDIDOS, pedidoRepository.count());
+        // a atualização em lotes passa pelo coordenador no lote com os 3 produtos e no lote vazio que a encerra
+        assertEquals(QUANTIDADE_PEDIDOS + 1 + 2, meterRegistry.get(LockMetrics.ESPERA_LOCK)
+                .tag("estrategia", "COORDENADOR_LOCAL")
+                .timer().count());
+    }
+
+    private Pedido criarPedido() {
+        var pedido = Pedido.builder().build();
+        pedido.setItens(produtos.stream()
+                .map(produto -> ItemPedido.builder()
+                        .produto(produto)
+                        .quantidade(1)
+                        .pedido(pedido)
+                        .build())
+                .toList());
+        return pedido;
+    }
+}
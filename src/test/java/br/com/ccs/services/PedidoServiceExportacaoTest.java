@@ -0,0 +1,217 @@
+package br.com.ccs.services;
+
+import br.com.ccs.ProdutosFixture;
+import br.com.ccs.entities.ItemPedido;
+import br.com.ccs.entities.Pedido;
+import br.com.ccs.entities.Produto;
+import br.com.ccs.repositories.PedidoRepository;
+import br.com.ccs.repositories.ProdutoRepository;
+import br.com.ccs.repositories.projections.LinhaExportacaoPedido;
+import br.com.ccs.services.exportacao.CsvSinkExportacaoPedidos;
+import br.com.ccs.services.exportacao.JsonLinhasSinkExportacaoPedidos;
+import br.com.ccs.services.exportacao.SinkExportacaoPedidos;
+import jakarta.inject.Inject;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Usa um H2 em arquivo: no H2 em memória os próprios dados ocupariam o heap medido.
+ * <p>
+ * Por padrão o volume exportado é pequeno o suficiente para rodar junto com os demais testes;
+ * para medir o heap com milhões de itens basta aumentá-lo, por exemplo:
+ * {@code mvn test -Dtest=PedidoServiceExportacaoTest -Dexportacao.pedidos=1000000}.
+ */
+@Slf4j
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:./target/h2/exportacao-pedidos",
+        "app.pedidos.exportacao.fetch-size=500"})
+class PedidoServiceExportacaoTest {
+
+    private static final int QUANTIDADE_PEDIDOS = Integer.getInteger("exportacao.pedidos", 10_000);
+    private static final int ITENS_POR_PEDIDO = 2;
+    private static final int AMOSTRAS_HEAP = 10;
+    private static final long CRESCIMENTO_MAXIMO_HEAP = 64L * 1024 * 1024;
+
+    @Inject
+    private PedidoService pedidoService;
+    @Inject
+    private PedidoRepository pedidoRepository;
+    @Inject
+    private ProdutoRepository produtoRepository;
+    @Inject
+    private JdbcTemplate jdbcTemplate;
+    private Produto produto;
+
+    @BeforeEach
+    void setUp() {
+        limparTabelas();
+        produto = ProdutosFixture.salvar(produtoRepository, "Refrigerante \"2L\", lata");
+    }
+
+    @AfterEach
+    void tearDown() {
+        limparTabelas();
+    }
+
+    @Test
+    void testExportarCsvEJsonLinhas() {
+        var pedido = Pedido.builder().build();
+        var item = ItemPedido.builder()
+                .quantidade(3)
+                .pedido(pedido)
+                .build();
+        item.setProduto(produto);
+        pedido.setItens(List.of(item));
+        pedidoRepository.saveAndFlush(pedido);
+
+        var csv = new ByteArrayOutputStream();
+        var json = new ByteArrayOutputStream();
+
+        assertEquals(1, pedidoService.exportar(new CsvSinkExportacaoPedidos(csv)));
+        assertEquals(1, pedidoService.exportar(new JsonLinhasSinkExportacaoPedidos(json)));
+
+        assertEquals("pedido_id,item_id,produto_id,nome_produto,quantidade,valor_unitario\r\n"
+                        + pedido.getId() + "," + item.getId() + "," + produto.getId()
+                        + ",\"Refrigerante \"\"2L\"\", lata\",3,155.79\r\n",
+                csv.toString(StandardCharsets.UTF_8));
+        assertEquals("{\"pedidoId\":\"" + pedido.getId() + "\",\"itemId\":\"" + item.getId()
+                        + "\",\"produtoId\":\"" + produto.getId()
+                        + "\",\"nomeProduto\":\"Refrigerante \\\"2L\\\", lata\",\"quantidade\":3,\"valorUnitario\":155.79}\n",
+                json.toString(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Pedidos sem itens também são exportados, e as linhas saem na ordem dos ids dos pedidos,
+     * não na ordem em que foram gravados.
+     */
+    @Test
+    void testExportarPedidosSemItensOrdenadosPeloId() {
+        var pedidoSemItens = Pedido.builder()
+                .id(UUID.fromString("00000000-0000-7000-8000-000000000002"))
+                .itens(List.of())
+                .build();
+        pedidoRepository.saveAndFlush(pedidoSemItens);
+
+        var pedidoComItem = Pedido.builder()
+                .id(UUID.fromString("00000000-0000-7000-8000-000000000001"))
+                .build();
+        var item = ItemPedido.builder()
+                .quantidade(1)
+                .pedido(pedidoComItem)
+                .build();
+        item.setProduto(produto);
+        pedidoComItem.setItens(List.of(item));
+        pedidoRepository.saveAndFlush(pedidoComItem);
+
+        var csv = new ByteArrayOutputStream();
+
+        assertEquals(2, pedidoService.exportar(new CsvSinkExportacaoPedidos(csv)));
+        assertEquals("pedido_id,item_id,produto_id,nome_produto,quantidade,valor_unitario\r\n"
+                        + pedidoComItem.getId() + "," + item.getId() + "," + produto.getId()
+                        + ",\"Refrigerante \"\"2L\"\", lata\",1,155.79\r\n"
+                        + pedidoSemItens.getId() + ",,,,,\r\n",
+                csv.toString(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Exporta {@code exportacao.pedidos} pedidos medindo o heap ocupado, após GC, em
+     * {@value #AMOSTRAS_HEAP} pontos da exportação: com milhões de itens, se as linhas ou
+     * entidades se acumulassem, o crescimento seria de centenas de megabytes.
+     */
+    @Test
+    void testExportarItensEmMassaComHeapLimitado() {
+        inserirEmMassa();
+
+        var totalLinhas = (long) QUANTIDADE_PEDIDOS * ITENS_POR_PEDIDO;
+        var sink = new SinkMedidorHeap(new CsvSinkExportacaoPedidos(OutputStream.nullOutputStream()),
+                Math.max(1, totalLinhas / AMOSTRAS_HEAP));
+        var linhas = pedidoService.exportar(sink);
+
+        log.info("\nHeap durante a exportação: inicial {} MiB, máximo {} MiB",
+                sink.heapInicial / (1024 * 1024), sink.heapMaximo / (1024 * 1024));
+        assertEquals(totalLinhas, linhas);
+        assertTrue(sink.heapMaximo - sink.heapInicial < CRESCIMENTO_MAXIMO_HEAP);
+    }
+
+    /**
+     * Gera as linhas direto no banco, com ids crescentes e sem checagem de chave
+     * estrangeira, para que a carga não domine o tempo do teste.
+     */
+    private void inserirEmMassa() {
+        jdbcTemplate.execute("set referential_integrity false");
+        jdbcTemplate.update("insert into pedido (id) select " + idSequencial(0) + " from system_range(1, ?)",
+                QUANTIDADE_PEDIDOS);
+        for (var i = 1; i <= ITENS_POR_PEDIDO; i++) {
+            jdbcTemplate.update("insert into item_pedido (id, pedido_id, produto_id, quantidade, valor_unitario) "
+                    + "select " + idSequencial(i) + ", " + idSequencial(0) + ", ?, 1, 155.79 from system_range(1, ?)",
+                    produto.getId(), QUANTIDADE_PEDIDOS);
+        }
+        jdbcTemplate.execute("set referential_integrity true");
+    }
+
+    private static String idSequencial(int prefixo) {
+        return "cast('00000000-0000-7000-8%03d-' || lpad(x, 12, '0') as uuid)".formatted(prefixo);
+    }
+
+    private void limparTabelas() {
+        jdbcTemplate.execute("set referential_integrity false");
+        jdbcTemplate.execute("truncate table item_pedido");
+        jdbcTemplate.execute("truncate table pedido");
+        jdbcTemplate.execute("truncate table produto");
+        jdbcTemplate.execute("set referential_integrity true");
+    }
+
+    private static class SinkMedidorHeap implements SinkExportacaoPedidos {
+
+        private final SinkExportacaoPedidos delegate;
+        private final long intervaloAmostra;
+        private long linhas;
+        private long heapInicial;
+        private long heapMaximo;
+
+        SinkMedidorHeap(SinkExportacaoPedidos delegate, long intervaloAmostra) {
+            this.delegate = delegate;
+            this.intervaloAmostra = intervaloAmostra;
+        }
+
+        @Override
+        public void iniciar() throws IOException {
+            delegate.iniciar();
+        }
+
+        @Override
+        public void escrever(LinhaExportacaoPedido linha) throws IOException {
+            delegate.escrever(linha);
+            if (linhas++ % intervaloAmostra == 0) {
+                var heap = heapAposGc();
+                heapInicial = linhas == 1 ? heap : heapInicial;
+                heapMaximo = Math.max(heapMaximo, heap);
+            }
+        }
+
+        @Override
+        public void finalizar() throws IOException {
+            delegate.finalizar();
+        }
+
+        private static long heapAposGc() {
+            System.gc();
+            return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        }
+    }
+}
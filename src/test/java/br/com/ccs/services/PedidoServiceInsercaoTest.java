@@ -0,0 +1,176 @@
+package br.com.ccs.services;
+
+import br.com.ccs.ProdutosFixture;
+import br.com.ccs.entities.ItemPedido;
+import br.com.ccs.entities.Pedido;
+import br.com.ccs.entities.Produto;
+import br.com.ccs.repositories.PedidoRepository;
+import br.com.ccs.repositories.ProdutoRepository;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class PedidoServiceInsercaoTest {
+
+    private static final int QUANTIDADE_ITENS = 100;
+    private static final int TAMANHO_BATCH = 50;
+    private static final AtomicInteger COMANDOS_EXECUTADOS = new AtomicInteger();
+
+    @Inject
+    private PedidoService pedidoService;
+    @Inject
+    private ProdutoRepository produtoRepository;
+    @Inject
+    private PedidoRepository pedidoRepository;
+    @Inject
+    private TransactionTemplate transactionTemplate;
+    private List<Produto> produtos;
+
+    @BeforeEach
+    void setUp() {
+        produtos = ProdutosFixture.salvar(produtoRepository, QUANTIDADE_ITENS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pedidoRepository.deleteAll();
+        produtoRepository.deleteAll();
+    }
+
+    /**
+     * Um pedido novo com 100 itens deve custar apenas o SELECT com lock dos produtos e os
+     * INSERTs em lote: um para o pedido e dois lotes de 50 para os itens, sem nenhum SELECT de
+     * {@code merge} antes das inserções. Os produtos acabaram de ser criados e ainda não estão
+     * no snapshot em memória, então a pré-validação lê os seus custos com um SELECT sem lock.
+     */
+    @Test
+    void testSavePedidoNovoApenasInsereEmLote() {
+        var pedido = criarPedido();
+        COMANDOS_EXECUTADOS.set(0);
+
+        pedidoService.save(pedido);
+
+        assertEquals(1 + 1 + 1 + QUANTIDADE_ITENS / TAMANHO_BATCH, COMANDOS_EXECUTADOS.get());
+        assertEquals(1, pedidoRepository.count());
+    }
+
+    /**
+     * Uma transação desfeita depois do flush não pode deixar o pedido marcado como gravado:
+     * a nova tentativa, com as mesmas instâncias, volta a inserir pedido e itens.
+     */
+    @Test
+    void testPedidoVoltaASerNovoAposRollbackDepoisDoFlush() {
+        var pedido = criarPedido();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            pedidoRepository.saveAndFlush(pedido);
+            status.setRollbackOnly();
+        });
+
+        assertTrue(pedido.isNew());
+        assertTrue(pedido.getItens().stream().allMatch(ItemPedido::isNew));
+
+        COMANDOS_EXECUTADOS.set(0);
+        pedidoService.save(pedido);
+
+        assertEquals(1 + 1 + 1 + QUANTIDADE_ITENS / TAMANHO_BATCH, COMANDOS_EXECUTADOS.get());
+        assertEquals(1, pedidoRepository.count());
+    }
+
+    @Test
+    void testSaveSemIdsGeraUuidV7() {
+        var pedido = Pedido.builder().build();
+        pedido.setItens(List.of(ItemPedido.builder()
+                .produto(produtos.get(0))
+                .quantidade(1)
+                .pedido(pedido)
+                .build()));
+
+        pedidoService.save(pedido);
+
+        assertEquals(7, pedido.getId().version());
+        assertEquals(7, pedido.getItens().get(0).getId().version());
+        assertTrue(pedidoRepository.existsById(pedido.getId()));
+    }
+
+    private Pedido criarPedido() {
+        var pedido = Pedido.builder()
+                .id(UUID.randomUUID())
+                .build();
+        pedido.setItens(produtos.stream()
+                .map(produto -> ItemPedido.builder()
+                        .id(UUID.randomUUID())
+                        .produto(produto)
+                        .quantidade(1)
+                        .pedido(pedido)
+                        .build())
+                .toList());
+        return pedido;
+    }
+
+    /**
+     * Conta as idas ao banco: cada {@code execute*} de um {@link Statement}, onde um
+     * {@code executeBatch} conta como um único comando.
+     */
+    @TestConfiguration
+    static class ContadorComandosConfig {
+
+        private static final Set<String> METODOS_EXECUCAO = Set.of("execute", "executeQuery", "executeUpdate",
+                "executeLargeUpdate", "executeBatch", "executeLargeBatch");
+
+        @Bean
+        static BeanPostProcessor contadorComandosDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource
+                            ? proxy(DataSource.class, dataSource)
+                            : bean;
+                }
+            };
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> T proxy(Class<T> tipo, T alvo) {
+            return (T) Proxy.newProxyInstance(tipo.getClassLoader(), new Class<?>[]{tipo}, (proxy, method, args) -> {
+                Object resultado;
+                try {
+                    resultado = method.invoke(alvo, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+
+                if (resultado instanceof Connection connection && method.getReturnType() == Connection.class) {
+                    return proxy(Connection.class, connection);
+                }
+                if (resultado instanceof Statement statement && Statement.class.isAssignableFrom(method.getReturnType())) {
+                    return proxy((Class<Statement>) method.getReturnType(), statement);
+                }
+                if (alvo instanceof Statement && METODOS_EXECUCAO.contains(method.getName())) {
+                    COMANDOS_EXECUTADOS.incrementAndGet();
+                }
+                return resultado;
+            });
+        }
+    }
+}
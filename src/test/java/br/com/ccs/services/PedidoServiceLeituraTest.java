@@ -0,0 +1,130 @@
+package br.com.ccs.services;
+
+import br.com.ccs.ProdutosFixture;
+import br.com.ccs.entities.ItemPedido;
+import br.com.ccs.entities.Pedido;
+import br.com.ccs.locks.OrdemCanonicaIds;
+import br.com.ccs.repositories.PedidoRepository;
+import br.com.ccs.repositories.ProdutoRepository;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class PedidoServiceLeituraTest {
+
+    private static final int QUANTIDADE_PEDIDOS = 3;
+    private static final int ITENS_POR_PEDIDO = 4;
+
+    @Inject
+    private PedidoService pedidoService;
+    @Inject
+    private PedidoRepository pedidoRepository;
+    @Inject
+    private ProdutoRepository produtoRepository;
+    @Inject
+    private EntityManagerFactory entityManagerFactory;
+    private List<Pedido> pedidos;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        var produtos = ProdutosFixture.salvar(produtoRepository, ITENS_POR_PEDIDO);
+
+        pedidos = new ArrayList<>(QUANTIDADE_PEDIDOS);
+        for (var i = 0; i < QUANTIDADE_PEDIDOS; i++) {
+            var pedido = Pedido.builder().build();
+            pedido.setItens(produtos.stream()
+                    .map(produto -> {
+                        var item = ItemPedido.builder()
+                                .quantidade(1)
+                                .pedido(pedido)
+                                .build();
+                        item.setProduto(produto);
+                        return item;
+                    })
+                    .toList());
+            pedidos.add(pedido);
+        }
+        pedidoRepository.saveAllAndFlush(pedidos);
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        pedidoRepository.deleteAll();
+        produtoRepository.deleteAll();
+    }
+
+    /**
+     * O pedido, seus itens e os produtos devem vir em uma única consulta e continuar
+     * acessíveis fora da transação, sem nenhuma carga tardia.
+     */
+    @Test
+    void testFindComItensByIdCarregaItensEProdutosEmUmaConsulta() {
+        var pedido = pedidoService.findComItensById(pedidos.get(0).getId()).orElseThrow();
+
+        assertEquals(ITENS_POR_PEDIDO, pedido.getItens().stream()
+                .map(item -> item.getProduto().getNome())
+                .distinct()
+                .count());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    /**
+     * A listagem paginada custa a consulta dos ids, a contagem e uma consulta para os
+     * pedidos da página, que devem vir completos e na ordem pedida.
+     */
+    @Test
+    void testFindAllComItensPaginaIdsAntesDoFetch() {
+        var pagina = pedidoService.findAllComItens(PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "id")));
+
+        var idsEsperados = pedidos.stream()
+                .map(Pedido::getId)
+                .sorted(OrdemCanonicaIds.COMPARADOR.reversed())
+                .limit(2)
+                .toList();
+        assertEquals(idsEsperados, pagina.map(Pedido::getId).getContent());
+        assertEquals(QUANTIDADE_PEDIDOS, pagina.getTotalElements());
+        pagina.forEach(pedido -> assertEquals(ITENS_POR_PEDIDO, pedido.getItens().size()));
+        assertEquals(3, statistics.getPrepareStatementCount());
+    }
+
+    /**
+     * Sem ordenação informada, as páginas seguem a ordem do id.
+     */
+    @Test
+    void testFindAllComItensSemOrdenacaoOrdenaPeloId() {
+        var pagina = pedidoService.findAllComItens(PageRequest.of(0, QUANTIDADE_PEDIDOS));
+
+        var idsEsperados = pedidos.stream()
+                .map(Pedido::getId)
+                .sorted(OrdemCanonicaIds.COMPARADOR)
+                .toList();
+        assertEquals(idsEsperados, pagina.map(Pedido::getId).getContent());
+        assertEquals(Sort.by("id"), pagina.getSort());
+    }
+
+    @Test
+    void testFindResumoItensByPedidoIdTrazNomeDoProduto() {
+        var resumo = pedidoRepository.findResumoItensByPedidoId(pedidos.get(0).getId());
+
+        assertEquals(ITENS_POR_PEDIDO, resumo.size());
+        resumo.forEach(item -> assertEquals(ProdutosFixture.VALOR_VENDA, item.valorUnitario()));
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+}
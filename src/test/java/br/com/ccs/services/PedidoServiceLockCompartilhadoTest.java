@@ -0,0 +1,34 @@
+package br.com.ccs.services;
+
+import br.com.ccs.App;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.core.NestedExceptionUtils;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * O H2 não tem lock compartilhado de linha e traduz {@code PESSIMISTIC_READ} para
+ * {@code FOR UPDATE}: com a estratégia {@code PESSIMISTA_LEITURA} a aplicação não sobe, em vez
+ * de serializar no banco os pedidos que a estratégia promete validar em paralelo.
+ */
+class PedidoServiceLockCompartilhadoTest {
+
+    @Test
+    void testEstrategiaCompartilhadaSemLockCompartilhadoNoBancoImpedeSubida() {
+        var erro = assertThrows(Exception.class, () -> new SpringApplicationBuilder(App.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                .run("--app.lock.estrategia=PESSIMISTA_LEITURA",
+                        "--spring.datasource.url=jdbc:h2:mem:lock-compartilhado-" + UUID.randomUUID())
+                .close());
+
+        var causa = assertInstanceOf(IllegalStateException.class, NestedExceptionUtils.getMostSpecificCause(erro));
+        assertTrue(causa.getMessage().contains("PESSIMISTA_LEITURA"), causa.getMessage());
+    }
+}
@@ -0,0 +1,102 @@
+package br.com.ccs.services;
+
+import br.com.ccs.ProdutosFixture;
+import br.com.ccs.entities.ItemPedido;
+import br.com.ccs.entities.Pedido;
+import br.com.ccs.entities.Produto;
+import br.com.ccs.exceptions.PrecoVendaInvalidoException;
+import br.com.ccs.repositories.PedidoRepository;
+import br.com.ccs.repositories.ProdutoRepository;
+import jakarta.inject.Inject;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@SpringBootTest(properties = "app.lock.estrategia=OTIMISTA")
+@Slf4j
+class PedidoServiceLockOtimistaTest {
+
+    @Inject
+    private PedidoService pedidoService;
+    @Inject
+    private ProdutoService produtoService;
+    @Inject
+    private ProdutoRepository produtoRepository;
+    @Inject
+    private PedidoRepository pedidoRepository;
+    @SpyBean
+    private ItemPedidoService itemPedidoService;
+    private Produto produto;
+
+    @BeforeEach
+    void setUp() {
+        produto = ProdutosFixture.salvar(produtoRepository, "Coca-cola");
+    }
+
+    @AfterEach
+    void tearDown() {
+        pedidoRepository.deleteAll();
+        produtoRepository.deleteAll();
+    }
+
+    @Test
+    void testSaveComLockOtimista() {
+        assertDoesNotThrow(() -> pedidoService.save(criarPedido()));
+        assertTrue(pedidoRepository.count() > 0);
+    }
+
+    /**
+     * Neste cenário o valor de compra é alterado por outra transação depois
+     * que o pedido já foi validado, mas antes do seu commit.
+     * <p>
+     * A versão lida pela validação não confere mais no commit, então a gravação
+     * deve ser repetida e a nova tentativa deve enxergar o valor de compra atualizado.
+     */
+    @Test
+    void testQuandoValorCompraAlteradoAntesDoCommitRepeteValidacao() {
+        var novoValorCompra = BigDecimal.valueOf(200.00).setScale(2, RoundingMode.HALF_EVEN);
+        var alterado = new AtomicBoolean();
+
+        doAnswer(invocation -> {
+            invocation.callRealMethod();
+            if (alterado.compareAndSet(false, true)) {
+                CompletableFuture.runAsync(() -> produtoService.atualizarValorCompraProdutos(novoValorCompra)).join();
+            }
+            return null;
+        }).when(itemPedidoService).validarItensPedido(anyList());
+
+        assertThrows(PrecoVendaInvalidoException.class, () -> pedidoService.save(criarPedido()));
+        verify(itemPedidoService, times(2)).validarItensPedido(anyList());
+    }
+
+    private Pedido criarPedido() {
+        var pedido = Pedido.builder()
+                .id(UUID.randomUUID())
+                .build();
+        pedido.setItens(List.of(ItemPedido.builder()
+                .id(UUID.randomUUID())
+                .produto(produto)
+                .quantidade(1)
+                .pedido(pedido)
+                .build()));
+        return pedido;
+    }
+}
@@ -0,0 +1,148 @@
+package br.com.ccs.services;
+
+import br.com.ccs.ProdutosFixture;
+import br.com.ccs.cache.SnapshotCustoProdutos;
+import br.com.ccs.entities.ItemPedido;
+import br.com.ccs.entities.Pedido;
+import br.com.ccs.entities.Produto;
+import br.com.ccs.exceptions.PrecoVendaInvalidoException;
+import br.com.ccs.repositories.PedidoRepository;
+import br.com.ccs.repositories.ProdutoRepository;
+import jakarta.inject.Inject;
+import jakarta.persistence.LockModeType;
+import org.hibernate.LockOptions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Com o produto bloqueado por outra transação, quem precisa do lock falha; o pedido abaixo da
+ * margem mínima é rejeitado na pré-validação, sem lock, e não disputa os produtos.
+ */
+@SpringBootTest(properties = "app.lock.estrategia=PESSIMISTA_NOWAIT")
+class PedidoServicePreValidacaoTest {
+
+    @Inject
+    private PedidoService pedidoService;
+    @Inject
+    private ProdutoService produtoService;
+    @Inject
+    private ProdutoRepository produtoRepository;
+    @Inject
+    private PedidoRepository pedidoRepository;
+    @Inject
+    private TransactionTemplate transactionTemplate;
+    @Inject
+    private SnapshotCustoProdutos snapshotCustoProdutos;
+    private Produto produtoAbaixoMargem;
+    private Produto produtoBloqueado;
+    private Produto produtoLivre;
+
+    @BeforeEach
+    void setUp() {
+        snapshotCustoProdutos.invalidarTodos();
+        produtoAbaixoMargem = ProdutosFixture.salvar(produtoRepository, "Produto abaixo da margem", BigDecimal.valueOf(150.00));
+        produtoBloqueado = ProdutosFixture.salvar(produtoRepository, "Produto bloqueado");
+        produtoLivre = ProdutosFixture.salvar(produtoRepository, "Produto livre");
+    }
+
+    @AfterEach
+    void tearDown() {
+        pedidoRepository.deleteAll();
+        produtoRepository.deleteAll();
+    }
+
+    /**
+     * Sem os custos no snapshot, a pré-validação os lê do banco sem lock e rejeita o pedido
+     * sem esperar pelo produto bloqueado, deixando os custos lidos no snapshot.
+     */
+    @Test
+    void testPedidoAbaixoDaMargemRejeitadoSemDisputarLockDosProdutos() {
+        executarComProdutoBloqueado(() -> assertThrows(PrecoVendaInvalidoException.class,
+                () -> pedidoService.save(criarPedido(produtoAbaixoMargem, produtoBloqueado))));
+
+        assertEquals(0, pedidoRepository.count());
+        assertEquals(2, snapshotCustoProdutos.buscar(List.of(produtoAbaixoMargem.getId(), produtoBloqueado.getId())).size());
+    }
+
+    /**
+     * A atualização do valor de compra invalida o snapshot após o commit: a pré-validação
+     * seguinte lê o custo novo e não rejeita o pedido que deixou de estar abaixo da margem.
+     */
+    @Test
+    void testPreValidacaoAcompanhaAtualizacaoDoValorCompra() {
+        assertThrows(PrecoVendaInvalidoException.class, () -> pedidoService.save(criarPedido(produtoAbaixoMargem)));
+
+        produtoService.atualizarValorCompraProdutos(BigDecimal.valueOf(100.00));
+
+        assertDoesNotThrow(() -> pedidoService.save(criarPedido(produtoAbaixoMargem)));
+        assertEquals(1, pedidoRepository.count());
+    }
+
+    /**
+     * O pedido rejeitado na pré-validação fica fora do grupo, e o produto bloqueado que só ele
+     * usava não impede a gravação dos demais.
+     */
+    @Test
+    void testGrupoGravaAprovadosSemBloquearProdutosDosRejeitados() {
+        var rejeitado = criarPedido(produtoAbaixoMargem, produtoBloqueado);
+        var aprovado = criarPedido(produtoLivre);
+
+        var resultados = executarComProdutoBloqueado(() -> pedidoService.saveAll(List.of(rejeitado, aprovado)));
+
+        assertFalse(resultados.get(0).gravado());
+        assertEquals(rejeitado.getId(), resultados.get(0).pedidoId());
+        assertTrue(resultados.get(1).gravado());
+        assertEquals(aprovado.getId(), resultados.get(1).pedidoId());
+        assertEquals(1, pedidoRepository.count());
+    }
+
+    private <T> T executarComProdutoBloqueado(Supplier<T> acao) {
+        var bloqueado = new CountDownLatch(1);
+        var liberar = new CountDownLatch(1);
+        var segura = CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(status -> {
+            produtoRepository.findByIdIn(List.of(produtoBloqueado.getId()), LockModeType.PESSIMISTIC_WRITE, LockOptions.WAIT_FOREVER);
+            bloqueado.countDown();
+            aguardar(liberar);
+        }));
+
+        try {
+            aguardar(bloqueado);
+            return acao.get();
+        } finally {
+            liberar.countDown();
+            segura.join();
+        }
+    }
+
+    private static Pedido criarPedido(Produto... produtos) {
+        var pedido = Pedido.builder().build();
+        pedido.setItens(Stream.of(produtos)
+                .map(produto -> ItemPedido.builder()
+                        .produto(produto)
+                        .quantidade(1)
+                        .pedido(pedido)
+                        .build())
+                .toList());
+        return pedido;
+    }
+
+    private static void aguardar(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package br.com.ccs.services;
+
+import br.com.ccs.ProdutosFixture;
+import br.com.ccs.config.SessoesBancoDataSource;
+import br.com.ccs.entities.ItemPedido;
+import br.com.ccs.entities.Pedido;
+import br.com.ccs.entities.Produto;
+import br.com.ccs.leitura.LeituraReplica;
+import br.com.ccs.repositories.PedidoRepository;
+import br.com.ccs.repositories.ProdutoRepository;
+import br.com.ccs.services.exportacao.CsvSinkExportacaoPedidos;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.inject.Inject;
+import jakarta.inject.Named;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A réplica é um segundo H2 local, com o esquema do script versionado e sem nenhum dado:
+ * o que for lido nela volta vazio, o que for lido no principal encontra os pedidos gravados.
+ * A identificação das threads do diagnóstico de locks fica ligada para conferir que os pools
+ * continuam injetáveis como {@link HikariDataSource}.
+ */
+@SpringBootTest(properties = {
+        "app.datasource.replica.habilitada=true",
+        "app.lock.diagnostico.identificar-threads=true",
+        "app.datasource.replica.url=jdbc:h2:mem:replica-${random.uuid};DB_CLOSE_DELAY=-1"})
+class PedidoServiceReplicaTest {
+
+    @Inject
+    private PedidoService pedidoService;
+    @Inject
+    private ProdutoService produtoService;
+    @Inject
+    private LeituraReplica leituraReplica;
+    @Inject
+    private ProdutoRepository produtoRepository;
+    @Inject
+    private PedidoRepository pedidoRepository;
+    @Inject
+    @Named("dataSourceReplica")
+    private HikariDataSource dataSourceReplica;
+    @Inject
+    private DataSource dataSource;
+    private Produto produto;
+    private Pedido pedido;
+
+    @BeforeEach
+    void setUp() {
+        Flyway.configure().dataSource(dataSourceReplica).load().migrate();
+
+        produto = ProdutosFixture.salvar(produtoRepository, "Coca-cola");
+        pedido = Pedido.builder().build();
+        pedido.setItens(List.of(ItemPedido.builder()
+                .produto(produto)
+                .quantidade(1)
+                .pedido(pedido)
+                .build()));
+        pedidoService.saveAll(List.of(pedido));
+    }
+
+    @AfterEach
+    void tearDown() {
+        pedidoRepository.deleteAll();
+        produtoRepository.deleteAll();
+    }
+
+    @Test
+    void testListagemOptanteLeDaReplica() {
+        assertTrue(pedidoService.findAllComItens(PageRequest.of(0, 10)).isEmpty());
+        assertEquals(0, pedidoService.exportar(new CsvSinkExportacaoPedidos(new ByteArrayOutputStream())));
+    }
+
+    /**
+     * {@code readOnly} sem a opção explícita pela réplica continua no principal, inclusive a
+     * busca com lock dos produtos.
+     */
+    @Test
+    void testReadOnlySemOpcaoExplicitaLeDoPrincipal() {
+        assertTrue(pedidoService.findComItensById(pedido.getId()).isPresent());
+        assertEquals(1, produtoService.findByIdIn(List.of(produto.getId())).size());
+    }
+
+    @Test
+    void testLeituraComLockRecusadaNaReplica() {
+        var ids = List.of(produto.getId());
+
+        var excecao = assertThrows(IllegalStateException.class,
+                () -> leituraReplica.executar(() -> produtoService.findByIdIn(ids)));
+        assertTrue(excecao.getMessage().contains("banco principal"));
+    }
+
+    /**
+     * O pool principal, alcançado pelo roteamento, continua registrando as sessões retiradas.
+     */
+    @Test
+    void testPoolsEnvolvidosMantemTipoERegistramSessoes() throws Exception {
+        assertEquals("replica", dataSourceReplica.getPoolName());
+        assertTrue(dataSource.isWrapperFor(SessoesBancoDataSource.class));
+
+        int idSessao;
+        try (var conexao = dataSource.getConnection();
+             var statement = conexao.createStatement();
+             var resultado = statement.executeQuery("call session_id()")) {
+            resultado.next();
+            idSessao = resultado.getInt(1);
+        }
+
+        assertEquals(SessoesBancoDataSource.descrever(Thread.currentThread()),
+                dataSource.unwrap(SessoesBancoDataSource.class).thread(idSessao).orElseThrow());
+    }
+}
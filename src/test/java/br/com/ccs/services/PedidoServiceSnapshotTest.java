@@ -0,0 +1,121 @@
+package br.com.ccs.services;
+
+import br.com.ccs.ProdutosFixture;
+import br.com.ccs.cache.SnapshotCustoProdutos;
+import br.com.ccs.entities.ItemPedido;
+import br.com.ccs.entities.Pedido;
+import br.com.ccs.entities.Produto;
+import br.com.ccs.exceptions.PrecoVendaInvalidoException;
+import br.com.ccs.metrics.LockMetrics;
+import br.com.ccs.repositories.PedidoRepository;
+import br.com.ccs.repositories.ProdutoRepository;
+import br.com.ccs.repositories.projections.CustoProduto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = "app.lock.estrategia=OTIMISTA_SNAPSHOT")
+class PedidoServiceSnapshotTest {
+
+    @Inject
+    private PedidoService pedidoService;
+    @Inject
+    private ProdutoService produtoService;
+    @Inject
+    private ProdutoRepository produtoRepository;
+    @Inject
+    private PedidoRepository pedidoRepository;
+    @Inject
+    private SnapshotCustoProdutos snapshotCustoProdutos;
+    @Inject
+    private MeterRegistry meterRegistry;
+    private Produto produto;
+
+    @BeforeEach
+    void setUp() {
+        snapshotCustoProdutos.invalidarTodos();
+        produto = ProdutosFixture.salvar(produtoRepository, "Coca-cola");
+    }
+
+    @AfterEach
+    void tearDown() {
+        pedidoRepository.deleteAll();
+        produtoRepository.deleteAll();
+    }
+
+    @Test
+    void testSegundoPedidoUsaValorCompraDoSnapshot() {
+        pedidoService.save(criarPedido());
+        assertEquals(1, snapshotCustoProdutos.tamanho());
+
+        var acertosAntes = acertos();
+        pedidoService.save(criarPedido());
+
+        assertEquals(acertosAntes + 1, acertos());
+        assertEquals(2, pedidoRepository.count());
+    }
+
+    /**
+     * Após o commit de uma atualização do valor de compra, o snapshot não pode
+     * continuar servindo o valor antigo para a validação.
+     */
+    @Test
+    void testAtualizacaoValorCompraInvalidaSnapshot() {
+        pedidoService.save(criarPedido());
+
+        produtoService.atualizarValorCompraProdutos(BigDecimal.valueOf(200.00));
+
+        assertEquals(0, snapshotCustoProdutos.tamanho());
+        assertThrows(PrecoVendaInvalidoException.class, () -> pedidoService.save(criarPedido()));
+    }
+
+    /**
+     * Se o snapshot estiver com uma versão antiga, a conferência no commit deve falhar,
+     * descartar o produto do snapshot e repetir a gravação com o valor lido do banco.
+     */
+    @Test
+    void testVersaoDesatualizadaNoSnapshotRepeteGravacao() {
+        snapshotCustoProdutos.armazenar(List.of(new CustoProduto(produto.getId(), BigDecimal.valueOf(100.00),
+                produto.getVersao() - 1)), snapshotCustoProdutos.geracao());
+        var retentativasAntes = retentativas();
+
+        assertDoesNotThrow(() -> pedidoService.save(criarPedido()));
+
+        assertTrue(retentativas() > retentativasAntes);
+        assertEquals(produto.getVersao(), snapshotCustoProdutos.buscar(List.of(produto.getId())).get(produto.getId()).versao());
+    }
+
+    private double acertos() {
+        return meterRegistry.get("produtos.snapshot.acessos").tag("resultado", "acerto").counter().count();
+    }
+
+    private double retentativas() {
+        return meterRegistry.find(LockMetrics.RETENTATIVAS).counters().stream().mapToDouble(Counter::count).sum();
+    }
+
+    private Pedido criarPedido() {
+        var pedido = Pedido.builder()
+                .id(UUID.randomUUID())
+                .build();
+        pedido.setItens(List.of(ItemPedido.builder()
+                .id(UUID.randomUUID())
+                .produto(produto)
+                .quantidade(1)
+                .pedido(pedido)
+                .build()));
+        return pedido;
+    }
+}
@@ -4,9 +4,11 @@ import br.com.ccs.entities.ItemPedido;
 import br.com.ccs.entities.Pedido;
 import br.com.ccs.entities.Produto;
 import br.com.ccs.exceptions.PrecoVendaInvalidoException;
-import br.com.ccs.exceptions.RepositoryException;
+import br.com.ccs.metrics.LockMetrics;
 import br.com.ccs.repositories.PedidoRepository;
 import br.com.ccs.repositories.ProdutoRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.inject.Inject;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.AfterEach;
@@ -17,9 +19,11 @@ import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Objects;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -35,6 +39,8 @@ class PedidoServiceTest {
     private ProdutoService produtoService;
     @Inject
     private PedidoRepository pedidoRepository;
+    @Inject
+    private MeterRegistry meterRegistry;
 
     @AfterEach
     void tearDown() {
@@ -64,19 +70,17 @@ class PedidoServiceTest {
 
         var novoValorCompra = BigDecimal.valueOf(200.00).setScale(2, RoundingMode.HALF_EVEN);
 
+        var esperaLockAntes = esperasLock();
         futures[0] = CompletableFuture.runAsync(() -> assertDoesNotThrow(() -> pedidoService.save(pedido)));
         futures[1] = CompletableFuture.runAsync(() -> {
-            try {
-                /*
-                Vamos forçar uma pausa de 5ms para dar chance
-                desta thread entrar e simular a concorrência
-                ao tentar atualizar o valor de compra dos produtos,
-                durante a execução de validações do valor mínimo de venda.
-                 */
-                Thread.sleep(5);
-            } catch (InterruptedException e) {
-                throw new RuntimeException(e);
-            }
+            /*
+            Aguardamos a validação obter os locks dos produtos para
+            simular a concorrência ao tentar atualizar o valor de compra
+            durante a execução de validações do valor mínimo de venda.
+            Uma pausa fixa dependia de quanto a primeira chamada demorava
+            para chegar ao banco.
+             */
+            aguardarLocksDaValidacao(esperaLockAntes);
             produtoService.atualizarValorCompraProdutos(novoValorCompra);
         });
 
@@ -155,6 +159,10 @@ class PedidoServiceTest {
      * Nossa regra de negócio define que, iniciada uma validação
      * os produtos devem ficar bloqueados para atualizações até o fim
      * da validação.
+     * <p>
+     * Com os locks sempre adquiridos na mesma ordem, a validação espera as
+     * atualizações em vez de falhar por deadlock ou timeout de lock, e é
+     * recusada pelo valor de compra já atualizado.
      */
     @Test
     void testQuandoAletrandoValorCompraDuasThreadsSimultaneas() {
@@ -204,7 +212,7 @@ class PedidoServiceTest {
                     } catch (InterruptedException e) {
                         throw new RuntimeException(e);
                     }
-                    assertThrows(RepositoryException.class, () -> pedidoService.save(pedido));
+                    assertThrows(PrecoVendaInvalidoException.class, () -> pedidoService.save(pedido));
                 },
                 Executors.newVirtualThreadPerTaskExecutor());
 
@@ -213,6 +221,60 @@ class PedidoServiceTest {
 
     }
 
+    /**
+     * Neste cenário três pedidos que compartilham os mesmos produtos são gravados
+     * em grupo, sendo que um deles tem preço de venda abaixo do mínimo.
+     * <p>
+     * Os produtos devem ser bloqueados uma única vez para o grupo inteiro e
+     * o pedido inválido deve ser rejeitado sem impedir a gravação dos demais.
+     */
+    @Test
+    void testSaveAllComPedidoInvalidoNaoAfetaOsDemais() {
+        var pedidoValido = Pedido.builder()
+                .id(UUID.randomUUID())
+                .build();
+        pedidoValido.setItens(criarItensPedido(5, pedidoValido));
+
+        var outroPedidoValido = Pedido.builder()
+                .id(UUID.randomUUID())
+                .build();
+        outroPedidoValido.setItens(copiarItensPedido(pedidoValido, outroPedidoValido, null));
+
+        var pedidoInvalido = Pedido.builder()
+                .id(UUID.randomUUID())
+                .build();
+        pedidoInvalido.setItens(copiarItensPedido(pedidoValido, pedidoInvalido, BigDecimal.ONE));
+
+        var esperaLockAntes = esperasLock();
+
+        var resultados = pedidoService.saveAll(List.of(pedidoValido, pedidoInvalido, outroPedidoValido));
+
+        assertEquals(3, resultados.size());
+        assertTrue(resultados.get(0).gravado());
+        assertFalse(resultados.get(1).gravado());
+        assertNotNull(resultados.get(1).motivoRejeicao());
+        assertTrue(resultados.get(2).gravado());
+        assertTrue(pedidoRepository.existsById(pedidoValido.getId()));
+        assertTrue(pedidoRepository.existsById(outroPedidoValido.getId()));
+        assertFalse(pedidoRepository.existsById(pedidoInvalido.getId()));
+        assertEquals(esperaLockAntes + 1, esperasLock());
+    }
+
+    private static List<ItemPedido> copiarItensPedido(Pedido origem, Pedido pedido, BigDecimal valorVenda) {
+        return origem.getItens().stream()
+                .map(item -> ItemPedido.builder()
+                        .id(UUID.randomUUID())
+                        .produto(Objects.isNull(valorVenda) ? item.getProduto() : Produto.builder()
+                                .id(item.getProduto().getId())
+                                .nome(item.getProduto().getNome())
+                                .valorVenda(valorVenda)
+                                .build())
+                        .quantidade(item.getQuantidade())
+                        .pedido(pedido)
+                        .build())
+                .toList();
+    }
+
     private List<ItemPedido> criarItensPedido(int qtd, Pedido pedido) {
         var itens = new LinkedList<ItemPedido>();
 
@@ -238,4 +300,18 @@ class PedidoServiceTest {
 
         return itens;
     }
-}
\ No newline at end of file
+
+    private long esperasLock() {
+        return meterRegistry.find(LockMetrics.ESPERA_LOCK).timers().stream().mapToLong(Timer::count).sum();
+    }
+
+    private void aguardarLocksDaValidacao(long esperaLockAntes) {
+        var limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (esperasLock() == esperaLockAntes) {
+            if (System.nanoTime() > limite) {
+                throw new IllegalStateException("A validação não obteve os locks dos produtos");
+            }
+            Thread.onSpinWait();
+        }
+    }
+}
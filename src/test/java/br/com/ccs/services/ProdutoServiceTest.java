@@ -0,0 +1,81 @@
+package br.com.ccs.services;
+
+import br.com.ccs.ProdutosFixture;
+import br.com.ccs.repositories.ProdutoRepository;
+import br.com.ccs.services.dto.ProgressoAtualizacao;
+import jakarta.inject.Inject;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(properties = "app.produtos.atualizacao.tamanho-lote=10")
+@Slf4j
+class ProdutoServiceTest {
+
+    private static final int QUANTIDADE_PRODUTOS = 35;
+
+    @Inject
+    private ProdutoService produtoService;
+    @Inject
+    private ProdutoRepository produtoRepository;
+
+    @BeforeEach
+    void setUp() {
+        ProdutosFixture.salvar(produtoRepository, QUANTIDADE_PRODUTOS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        produtoRepository.deleteAll();
+    }
+
+    /**
+     * A atualização em lotes deve percorrer todo o catálogo, confirmando
+     * uma transação a cada lote e informando o progresso de cada um deles.
+     */
+    @Test
+    void testAtualizarValorCompraProdutosEmLotes() {
+        var novoValorCompra = BigDecimal.valueOf(200.00).setScale(2, RoundingMode.HALF_EVEN);
+        var progressos = new ArrayList<ProgressoAtualizacao>();
+
+        var progresso = produtoService.atualizarValorCompraProdutosEmLotes(novoValorCompra, null, progressos::add);
+
+        assertEquals(QUANTIDADE_PRODUTOS, progresso.produtosAtualizados());
+        assertEquals(4, progresso.lotesConfirmados());
+        assertEquals(4, progressos.size());
+        assertEquals(10, progressos.getFirst().produtosAtualizados());
+        produtoRepository.findAll().forEach(p -> assertEquals(novoValorCompra, p.getValorCompra()));
+    }
+
+    /**
+     * Ao retomar uma atualização a partir do último ID confirmado,
+     * somente os produtos posteriores a ele devem ser atualizados.
+     */
+    @Test
+    void testRetomarAtualizacaoValorCompraProdutosEmLotes() {
+        var novoValorCompra = BigDecimal.valueOf(200.00).setScale(2, RoundingMode.HALF_EVEN);
+        var produtosOrdenados = produtoRepository.findAll(Sort.by("id"));
+        var ultimoIdConfirmado = produtosOrdenados.get(19).getId();
+
+        var progresso = produtoService.atualizarValorCompraProdutosEmLotes(novoValorCompra, ultimoIdConfirmado, p -> {
+        });
+
+        assertEquals(QUANTIDADE_PRODUTOS - 20, progresso.produtosAtualizados());
+        assertEquals(produtosOrdenados.getLast().getId(), progresso.ultimoIdAtualizado());
+
+        var produtosAtualizados = produtoRepository.findAll(Sort.by("id"));
+        for (var i = 0; i < QUANTIDADE_PRODUTOS; i++) {
+            var esperado = i < 20 ? BigDecimal.valueOf(100.00).setScale(2, RoundingMode.HALF_EVEN) : novoValorCompra;
+            assertEquals(0, esperado.compareTo(produtosAtualizados.get(i).getValorCompra()));
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package br.com.ccs.services;
+
+import br.com.ccs.ProdutosFixture;
+import br.com.ccs.entities.ItemPedido;
+import br.com.ccs.entities.Pedido;
+import br.com.ccs.entities.Produto;
+import br.com.ccs.exceptions.RepositoryException;
+import br.com.ccs.metrics.LockMetrics;
+import br.com.ccs.repositories.PedidoRepository;
+import br.com.ccs.repositories.ProdutoRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.inject.Inject;
+import jakarta.persistence.LockModeType;
+import org.hibernate.LockOptions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Com a estratégia {@code PESSIMISTA_NOWAIT} a busca dos produtos falha na hora quando outra
+ * transação segura os locks; o reagendador deve reenviar o pedido até o prazo configurado.
+ */
+@SpringBootTest(properties = {
+        "app.lock.estrategia=PESSIMISTA_NOWAIT",
+        "app.lock.reagendamento.backoff-maximo=100ms",
+        "app.lock.reagendamento.prazo=1s"})
+class ReagendadorPedidosTest {
+
+    @Inject
+    private ReagendadorPedidos reagendadorPedidos;
+    @Inject
+    private ProdutoService produtoService;
+    @Inject
+    private ProdutoRepository produtoRepository;
+    @Inject
+    private PedidoRepository pedidoRepository;
+    @Inject
+    private TransactionTemplate transactionTemplate;
+    @Inject
+    private MeterRegistry meterRegistry;
+    private List<Produto> produtos;
+
+    @BeforeEach
+    void setUp() {
+        produtos = ProdutosFixture.salvar(produtoRepository, 3);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pedidoRepository.deleteAll();
+        produtoRepository.deleteAll();
+    }
+
+    /**
+     * Os produtos ficam bloqueados por 300ms, menos que o prazo: o pedido deve ser
+     * reagendado ao menos uma vez e gravado assim que os locks forem liberados.
+     */
+    @Test
+    void testPedidoReagendadoEGravadoAposLiberacaoDosLocks() throws InterruptedException {
+        var retentativasAntes = retentativas();
+        var bloqueio = bloquearProdutos(produtos, 300);
+
+        var resultado = reagendadorPedidos.submeter(criarPedido()).join();
+        bloqueio.join();
+
+        assertTrue(resultado.gravado());
+        assertTrue(pedidoRepository.existsById(resultado.pedidoId()));
+        assertTrue(retentativas() > retentativasAntes);
+    }
+
+    /**
+     * Os produtos ficam bloqueados além do prazo: o pedido deve falhar com a última
+     * {@link RepositoryException} e não ser gravado.
+     */
+    @Test
+    void testPedidoFalhaQuandoPrazoEsgotado() throws InterruptedException {
+        var bloqueio = bloquearProdutos(produtos, 2_000);
+        var pedido = criarPedido();
+
+        var falha = assertThrows(CompletionException.class, () -> reagendadorPedidos.submeter(pedido).join());
+        bloqueio.join();
+
+        assertInstanceOf(RepositoryException.class, falha.getCause());
+        assertEquals(0, pedidoRepository.count());
+    }
+
+    /**
+     * Um job em segundo plano deve bloquear apenas os produtos livres, ignorando o que
+     * está bloqueado por outra transação em vez de esperar por ele.
+     */
+    @Test
+    void testFindDisponiveisIgnoraProdutosBloqueados() throws InterruptedException {
+        var bloqueio = bloquearProdutos(List.of(produtos.getFirst()), 500);
+
+        var disponiveis = transactionTemplate.execute(status ->
+                produtoService.findDisponiveisByIdIn(produtos.stream().map(Produto::getId).toList()));
+        bloqueio.join();
+
+        assertNotNull(disponiveis);
+        assertEquals(2, disponiveis.size());
+        assertFalse(disponiveis.stream().anyMatch(p -> p.getId().equals(produtos.getFirst().getId())));
+    }
+
+    /**
+     * Bloqueia os produtos em outra thread pelo tempo informado e só retorna depois que o
+     * lock foi obtido.
+     */
+    private CompletableFuture<Void> bloquearProdutos(List<Produto> bloqueados, long millis) throws InterruptedException {
+        var bloqueado = new CountDownLatch(1);
+        var bloqueio = CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(status -> {
+            produtoRepository.findByIdIn(bloqueados.stream().map(Produto::getId).toList(),
+                    LockModeType.PESSIMISTIC_WRITE, LockOptions.WAIT_FOREVER);
+            bloqueado.countDown();
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        bloqueado.await();
+        return bloqueio;
+    }
+
+    private double retentativas() {
+        return meterRegistry.find(LockMetrics.RETENTATIVAS).counters().stream().mapToDouble(Counter::count).sum();
+    }
+
+    private Pedido criarPedido() {
+        var pedido = Pedido.builder().build();
+        pedido.setItens(produtos.stream()
+                .map(produto -> ItemPedido.builder()
+                        .produto(produto)
+                        .quantidade(1)
+                        .pedido(pedido)
+                        .build())
+                .toList());
+        return pedido;
+    }
+}
@@ -0,0 +1,83 @@
+package br.com.ccs.services;
+
+import br.com.ccs.ProdutosFixture;
+import br.com.ccs.entities.ItemPedido;
+import br.com.ccs.entities.Pedido;
+import br.com.ccs.entities.Produto;
+import br.com.ccs.repositories.PedidoRepository;
+import br.com.ccs.repositories.ProdutoRepository;
+import jakarta.inject.Inject;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Sobe o perfil "startup" validando o mapeamento contra o esquema criado pelas migrações do
+ * Flyway: o contexto não sobe se as migrações e as entidades divergirem.
+ */
+@SpringBootTest(properties = "spring.jpa.hibernate.ddl-auto=validate")
+@ActiveProfiles("startup")
+class SchemaStartupTest {
+
+    @Inject
+    private PedidoService pedidoService;
+    @Inject
+    private ProdutoRepository produtoRepository;
+    @Inject
+    private PedidoRepository pedidoRepository;
+    @Inject
+    private Flyway flyway;
+    @Inject
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        pedidoRepository.deleteAll();
+        produtoRepository.deleteAll();
+    }
+
+    /**
+     * Um produto incluído fora da aplicação, sem versão, começa na versão 0 e não é tratado
+     * como novo por {@link Produto#isNew()}.
+     */
+    @Test
+    void testEsquemaNaUltimaVersaoComVersaoProdutoObrigatoria() {
+        assertEquals("1", flyway.info().current().getVersion().getVersion());
+
+        jdbcTemplate.update("insert into produto (id, nome, valor_venda, valor_compra) values (random_uuid(), 'Externo', 10, 5)");
+
+        var produto = produtoRepository.findAll().getFirst();
+        assertEquals(0L, produto.getVersao());
+        assertFalse(produto.isNew());
+    }
+
+    /**
+     * Sem os metadados JDBC no boot, a gravação do pedido com lock dos produtos deve
+     * funcionar como no perfil padrão.
+     */
+    @Test
+    void testGravaPedidoComEsquemaDoScript() {
+        var produto = ProdutosFixture.salvar(produtoRepository, "Coca-cola");
+        var pedido = Pedido.builder().build();
+        pedido.setItens(List.of(ItemPedido.builder()
+                .produto(produto)
+                .quantidade(2)
+                .pedido(pedido)
+                .build()));
+
+        pedidoService.save(pedido);
+
+        var gravado = pedidoService.findComItensById(pedido.getId());
+        assertTrue(gravado.isPresent());
+        assertEquals(1, gravado.get().getItens().size());
+    }
+}
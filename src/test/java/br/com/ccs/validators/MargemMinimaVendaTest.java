@@ -0,0 +1,56 @@
+package br.com.ccs.validators;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MargemMinimaVendaTest {
+
+    @Test
+    void testValorVendaExatamenteNaMargemMinimaEhAceito() {
+        assertTrue(MargemMinimaVenda.atende(new BigDecimal("150.00"), new BigDecimal("100.00")));
+        assertTrue(MargemMinimaVenda.atende(new BigDecimal("0.15"), new BigDecimal("0.10")));
+        assertFalse(MargemMinimaVenda.atende(new BigDecimal("149.99"), new BigDecimal("100.00")));
+    }
+
+    @Test
+    void testEscalasDiferentesSaoComparadasPeloValor() {
+        assertTrue(MargemMinimaVenda.atende(BigDecimal.valueOf(155.79), BigDecimal.valueOf(100.00)));
+        assertTrue(MargemMinimaVenda.atende(new BigDecimal("1.5E+3"), new BigDecimal("1000")));
+        assertEquals(15579, MargemMinimaVenda.paraCentavos(new BigDecimal("155.790")));
+    }
+
+    /**
+     * Frações de centavo não cabem no ponto fixo e devem ser comparadas em {@link BigDecimal}.
+     */
+    @Test
+    void testFracaoDeCentavoUsaComparacaoDecimal() {
+        assertThrows(ArithmeticException.class, () -> MargemMinimaVenda.paraCentavos(new BigDecimal("0.001")));
+        assertFalse(MargemMinimaVenda.cabeEmCentavos(new BigDecimal("0.001")));
+        assertTrue(MargemMinimaVenda.atende(new BigDecimal("0.0015"), new BigDecimal("0.001")));
+        assertFalse(MargemMinimaVenda.atende(new BigDecimal("0.0014"), new BigDecimal("0.001")));
+    }
+
+    /**
+     * Valores cujos centavos, multiplicados pela margem, estourariam o {@code long} são
+     * desviados para o {@link BigDecimal} antes da conversão.
+     */
+    @Test
+    void testValoresAlemDoLongUsamComparacaoDecimal() {
+        var limite = new BigDecimal("9999999999999999.99");
+        assertTrue(MargemMinimaVenda.cabeEmCentavos(limite));
+        assertFalse(MargemMinimaVenda.cabeEmCentavos(limite.add(BigDecimal.ONE)));
+        assertTrue(MargemMinimaVenda.atende(new BigDecimal("150000000000000000000"), new BigDecimal("100000000000000000000")));
+        assertFalse(MargemMinimaVenda.atende(new BigDecimal("149999999999999999999"), new BigDecimal("100000000000000000000")));
+    }
+
+    @Test
+    void testValorMinimoVendaExato() {
+        assertEquals(0, new BigDecimal("150.015").compareTo(MargemMinimaVenda.valorMinimoVenda(new BigDecimal("100.01"))));
+    }
+}
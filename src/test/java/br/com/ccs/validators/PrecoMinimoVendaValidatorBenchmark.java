@@ -0,0 +1,78 @@
+package br.com.ccs.validators;
+
+import br.com.ccs.ProdutosFixture;
+import br.com.ccs.config.LockProperties;
+import br.com.ccs.entities.Produto;
+import br.com.ccs.locks.CoordenadorLocksProdutos;
+import br.com.ccs.metrics.LockMetrics;
+import br.com.ccs.services.ProdutoService;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Mede apenas o custo de CPU e alocação de {@link PrecoMinimoVendaValidator#validarValorMinimoVenda(List)},
+ * com o banco substituído por mocks que devolvem produtos já carregados.
+ * <p>
+ * O log é mantido em WARN, como em produção; use {@code -prof gc} para ver a alocação por operação.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PrecoMinimoVendaValidatorBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int itensPorPedido;
+
+    private PrecoMinimoVendaValidator validator;
+    private List<Produto> produtos;
+
+    @Setup
+    public void setUp() {
+        ((Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+
+        produtos = ProdutosFixture.produtos(itensPorPedido);
+        produtos.forEach(Produto::gerarIdSeAusente);
+
+        var produtoService = mock(ProdutoService.class);
+        when(produtoService.findByIdIn(anyList())).thenReturn(produtos);
+        var entityManager = mock(EntityManager.class);
+        when(entityManager.getLockMode(any())).thenReturn(LockModeType.PESSIMISTIC_WRITE);
+
+        var lockProperties = new LockProperties();
+        var lockMetrics = new LockMetrics(new SimpleMeterRegistry());
+        validator = new PrecoMinimoVendaValidator(produtoService, entityManager, lockProperties, lockMetrics,
+                new CoordenadorLocksProdutos(lockProperties, lockMetrics));
+    }
+
+    @Benchmark
+    public List<Produto> validarValorMinimoVenda() {
+        validator.validarValorMinimoVenda(produtos);
+        return produtos;
+    }
+}